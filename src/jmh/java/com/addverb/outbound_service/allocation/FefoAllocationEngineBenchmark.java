@@ -0,0 +1,54 @@
+package com.addverb.outbound_service.allocation;
+
+import com.addverb.outbound_service.benchmark.SyntheticWorkload;
+import com.addverb.outbound_service.enums.AllocationExecutionMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planning loop behind {@code OrderServiceImpl.allocateOrdersBulk}: one wave planned against one snapshot.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FefoAllocationEngineBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int orders;
+
+    @Param({"500"})
+    public int skus;
+
+    @Param({"8"})
+    public int batchesPerSku;
+
+    @Param({"0.8", "1.2"})
+    public double stockRatio;
+
+    @Param({"SEQUENTIAL", "PARTITIONED"})
+    public AllocationExecutionMode mode;
+
+    private FefoAllocationEngine engine;
+    private SyntheticWorkload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new FefoAllocationEngine(mode, 0, 0);
+        workload = SyntheticWorkload.generate(orders, skus, batchesPerSku, stockRatio, 42L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public List<AllocationPlan> planWave() {
+        return engine.plan(workload.demands(), workload.inventoryBySkuMrp(), mode);
+    }
+}
@@ -0,0 +1,85 @@
+package com.addverb.outbound_service.benchmark;
+
+import com.addverb.outbound_service.allocation.AllocationDemand;
+import com.addverb.outbound_service.inventory.InventoryBatchResponse;
+import com.addverb.outbound_service.inventory.InventoryClient;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Deterministic order / batch generators shared by the JMH benchmarks.
+ */
+public final class SyntheticWorkload {
+
+    private static final LocalDate BASE_EXPIRY = LocalDate.of(2027, 1, 1);
+
+    private final List<AllocationDemand> demands;
+    private final Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp;
+
+    private SyntheticWorkload(List<AllocationDemand> demands, Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp) {
+        this.demands = demands;
+        this.inventoryBySkuMrp = inventoryBySkuMrp;
+    }
+
+    /**
+     * Builds a wave of {@code orders} demands spread over {@code skus} SKU||MRP keys, each key stocked with
+     * {@code batchesPerSku} batches. {@code stockRatio} is total stock divided by total demand per key, so
+     * values below 1 leave the tail of each key short and exercise the partial / insufficient paths.
+     */
+    public static SyntheticWorkload generate(int orders, int skus, int batchesPerSku, double stockRatio, long seed) {
+
+        Random random = new Random(seed);
+        List<AllocationDemand> demands = new ArrayList<>(orders);
+        int[] demandBySku = new int[skus];
+
+        for (int i = 0; i < orders; i++) {
+            int sku = random.nextInt(skus);
+            int quantity = 1 + random.nextInt(20);
+            demandBySku[sku] += quantity;
+            demands.add(new AllocationDemand(skuCode(sku), mrp(sku), quantity));
+        }
+
+        Map<String, List<InventoryBatchResponse>> inventory = new HashMap<>();
+        for (int sku = 0; sku < skus; sku++) {
+            int stock = (int) Math.ceil(demandBySku[sku] * stockRatio);
+            inventory.put(InventoryClient.skuMrpKey(skuCode(sku), mrp(sku)), batches(sku, batchesPerSku, stock, random));
+        }
+
+        return new SyntheticWorkload(demands, inventory);
+    }
+
+    public static List<InventoryBatchResponse> batches(int sku, int batchCount, int totalStock, Random random) {
+
+        List<InventoryBatchResponse> batches = new ArrayList<>(batchCount);
+        int perBatch = Math.max(1, totalStock / Math.max(1, batchCount));
+
+        for (int b = 0; b < batchCount; b++) {
+            InventoryBatchResponse batch = new InventoryBatchResponse();
+            batch.setBatchNo("B-" + sku + "-" + b);
+            batch.setSku(skuCode(sku));
+            batch.setMrp(mrp(sku));
+            batch.setQuantity(perBatch);
+            batch.setExpiryDate(BASE_EXPIRY.plusDays(random.nextInt(365)));
+            batches.add(batch);
+        }
+
+        return batches;
+    }
+
+    public static String skuCode(int sku) {
+        return "SKU-" + sku;
+    }
+
+    public static Double mrp(int sku) {
+        return 10.0 + (sku % 50) * 2.5;
+    }
+
+    public List<AllocationDemand> demands() {
+        return demands;
+    }
+
+    public Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp() {
+        return inventoryBySkuMrp;
+    }
+}
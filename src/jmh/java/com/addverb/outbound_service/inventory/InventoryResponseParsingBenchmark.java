@@ -0,0 +1,125 @@
+package com.addverb.outbound_service.inventory;
+
+import com.addverb.outbound_service.benchmark.SyntheticWorkload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding cost of every /available response shape accepted by {@link InventoryClient#parseAvailableResponse(String)}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryResponseParsingBenchmark {
+
+    public enum Shape {
+        ARRAY, SINGLE_OBJECT, DATA_MAP, FLAT_ROWS
+    }
+
+    @Param({"ARRAY", "SINGLE_OBJECT", "DATA_MAP", "FLAT_ROWS"})
+    public Shape shape;
+
+    @Param({"100", "2000"})
+    public int skus;
+
+    @Param({"8"})
+    public int batchesPerSku;
+
+    private static final int CHUNK_BYTES = 8 * 1024;
+
+    private InventoryClient inventoryClient;
+    private InventoryAvailableResponseDecoder decoder;
+    private String payload;
+    private byte[] payloadBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        decoder = new InventoryAvailableResponseDecoder(objectMapper);
+        inventoryClient = new InventoryClient(
+                WebClient.builder().build(), decoder, CircuitBreaker.ofDefaults("inventory"), Bulkhead.ofDefaults("inventory"),
+                new InventoryHedgingPolicy(false, 95, 20, 200, 20, 256));
+        payload = objectMapper.writeValueAsString(buildPayload(objectMapper));
+        payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public InventoryBatchesBySkuMrpResponse[] parse() {
+        return inventoryClient.parseAvailableResponse(payload);
+    }
+
+    /**
+     * Decodes the body as the WebClient delivers it: a stream of network-sized buffers.
+     */
+    @Benchmark
+    public List<InventoryBatchesBySkuMrpResponse> decodeStream() {
+
+        Flux<DataBuffer> body = Flux.range(0, (payloadBytes.length + CHUNK_BYTES - 1) / CHUNK_BYTES)
+                .map(chunk -> {
+                    int from = chunk * CHUNK_BYTES;
+                    int length = Math.min(CHUNK_BYTES, payloadBytes.length - from);
+                    return (DataBuffer) DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(payloadBytes, from, length));
+                });
+
+        return decoder.decode(body).collectList().block();
+    }
+
+    private Object buildPayload(ObjectMapper objectMapper) {
+
+        Random random = new Random(7L);
+        int skuCount = shape == Shape.SINGLE_OBJECT ? 1 : skus;
+
+        ArrayNode array = objectMapper.createArrayNode();
+        ObjectNode dataMap = objectMapper.createObjectNode();
+        ArrayNode flatRows = objectMapper.createArrayNode();
+
+        for (int sku = 0; sku < skuCount; sku++) {
+            List<InventoryBatchResponse> batches = SyntheticWorkload.batches(sku, batchesPerSku, batchesPerSku * 100, random);
+            String skuCode = SyntheticWorkload.skuCode(sku);
+            Double mrp = SyntheticWorkload.mrp(sku);
+
+            ObjectNode entry = objectMapper.createObjectNode();
+            entry.put("sku", skuCode);
+            entry.put("mrp", mrp);
+            entry.set("batches", objectMapper.valueToTree(batches));
+            array.add(entry);
+
+            ArrayNode keyedBatches = dataMap.putArray(skuCode + "||" + mrp);
+            for (InventoryBatchResponse batch : batches) {
+                ObjectNode node = keyedBatches.addObject();
+                node.put("batchNo", batch.getBatchNo());
+                node.put("mrp", batch.getMrp());
+                node.put("quantity", batch.getQuantity());
+                node.put("expiryDate", batch.getExpiryDate().toString());
+
+                ObjectNode row = node.deepCopy();
+                row.put("sku", skuCode);
+                flatRows.add(row);
+            }
+        }
+
+        return switch (shape) {
+            case ARRAY -> array;
+            case SINGLE_OBJECT -> array.get(0);
+            case DATA_MAP -> objectMapper.createObjectNode().put("success", true).set("data", dataMap);
+            case FLAT_ROWS -> objectMapper.createObjectNode().put("success", true).set("data", flatRows);
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package com.addverb.outbound_service.allocation;
+
+/**
+ * Quantity still to be allocated for one order line, identified by its SKU and MRP.
+ */
+public record AllocationDemand(String skuCode, Double mrp, int quantity) {
+}
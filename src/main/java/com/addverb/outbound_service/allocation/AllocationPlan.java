@@ -0,0 +1,29 @@
+package com.addverb.outbound_service.allocation;
+
+import com.addverb.outbound_service.dto.BatchAllocationDetail;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of planning a single {@link AllocationDemand}: either the batch lines picked in FEFO order,
+ * or the reason nothing could be allocated.
+ */
+public record AllocationPlan(
+        List<BatchAllocationDetail> allocations,
+        int allocatedQty,
+        String failureReason
+) {
+
+    public static AllocationPlan allocated(List<BatchAllocationDetail> allocations, int allocatedQty) {
+        return new AllocationPlan(allocations, allocatedQty, null);
+    }
+
+    public static AllocationPlan failed(String failureReason) {
+        return new AllocationPlan(Collections.emptyList(), 0, failureReason);
+    }
+
+    public boolean isAllocated() {
+        return failureReason == null;
+    }
+}
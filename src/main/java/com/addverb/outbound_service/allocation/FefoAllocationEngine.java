@@ -0,0 +1,292 @@
+package com.addverb.outbound_service.allocation;
+
+import com.addverb.outbound_service.dto.BatchAllocationDetail;
+import com.addverb.outbound_service.enums.AllocationExecutionMode;
+import com.addverb.outbound_service.inventory.InventoryBatchResponse;
+import com.addverb.outbound_service.inventory.InventoryClient;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Plans a whole allocation wave against one inventory snapshot using first-expiry-first-out.
+ * <p>
+ * Every distinct SKU||MRP of the wave is interned to an int id and its batches are de-duplicated
+ * by batch number and sorted by expiry exactly once. Remaining stock lives in a flat int array and
+ * each key keeps a cursor to its earliest non-empty batch, so an order only ever touches batches
+ * that still have stock and a key whose stock ran out is rejected without scanning.
+ * <p>
+ * Orders only compete for stock within the same SKU||MRP, so in {@link AllocationExecutionMode#PARTITIONED}
+ * mode the keys are split into partitions that are planned concurrently on a dedicated fork-join pool.
+ * Within a key, orders are still planned in request order, so both modes produce identical plans.
+ */
+@Component
+@Slf4j
+public class FefoAllocationEngine {
+
+    public static final String NO_INVENTORY_MESSAGE = "No valid inventory available";
+    public static final String INSUFFICIENT_STOCK_MESSAGE = "Insufficient stock for allocation";
+
+    private static final int PARTITIONS_PER_WORKER = 4;
+
+    private static final Comparator<InventoryBatchResponse> BY_EXPIRY =
+            Comparator.comparing(InventoryBatchResponse::getExpiryDate, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final AllocationExecutionMode executionMode;
+    private final int partitionedMinWaveSize;
+    private final ForkJoinPool planningPool;
+
+    public FefoAllocationEngine(
+            @Value("${app.allocation.execution-mode:SEQUENTIAL}") AllocationExecutionMode executionMode,
+            @Value("${app.allocation.partitioned.parallelism:0}") int parallelism,
+            @Value("${app.allocation.partitioned.min-wave-size:2000}") int partitionedMinWaveSize) {
+        this.executionMode = executionMode;
+        this.partitionedMinWaveSize = partitionedMinWaveSize;
+        this.planningPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        planningPool.shutdown();
+    }
+
+    /**
+     * Plans the demands using the configured execution mode; the returned list is index-aligned with {@code demands}.
+     */
+    public List<AllocationPlan> plan(List<AllocationDemand> demands, Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp) {
+        boolean partitioned = executionMode == AllocationExecutionMode.PARTITIONED && demands.size() >= partitionedMinWaveSize;
+        return plan(demands, inventoryBySkuMrp, partitioned ? AllocationExecutionMode.PARTITIONED : AllocationExecutionMode.SEQUENTIAL);
+    }
+
+    public List<AllocationPlan> plan(
+            List<AllocationDemand> demands,
+            Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp,
+            AllocationExecutionMode mode) {
+
+        WaveKeys keys = WaveKeys.intern(demands);
+        DemandsByKey demandsByKey = DemandsByKey.group(keys);
+        AllocationPlan[] plans = new AllocationPlan[demands.size()];
+
+        int keyCount = keys.skuMrpKeys().size();
+        int partitions = mode == AllocationExecutionMode.PARTITIONED
+                ? Math.min(keyCount, planningPool.getParallelism() * PARTITIONS_PER_WORKER)
+                : 1;
+
+        if (partitions <= 1) {
+            planPartition(0, keyCount, keys, demandsByKey, demands, inventoryBySkuMrp, plans);
+            return Arrays.asList(plans);
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            int fromKey = (int) ((long) p * keyCount / partitions);
+            int toKey = (int) ((long) (p + 1) * keyCount / partitions);
+            tasks.add(() -> {
+                planPartition(fromKey, toKey, keys, demandsByKey, demands, inventoryBySkuMrp, plans);
+                return null;
+            });
+        }
+
+        log.debug("FefoAllocationEngine planning {} orders across {} keys in {} partitions", demands.size(), keyCount, partitions);
+
+        try {
+            for (Future<Void> future : planningPool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Allocation planning was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Allocation planning failed: " + ex.getCause().getMessage(), ex.getCause());
+        }
+
+        return Arrays.asList(plans);
+    }
+
+    private void planPartition(
+            int fromKey,
+            int toKey,
+            WaveKeys keys,
+            DemandsByKey demandsByKey,
+            List<AllocationDemand> demands,
+            Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp,
+            AllocationPlan[] plans) {
+
+        WaveStock stock = WaveStock.build(keys.skuMrpKeys().subList(fromKey, toKey), inventoryBySkuMrp);
+
+        for (int key = fromKey; key < toKey; key++) {
+            for (int i = demandsByKey.start()[key]; i < demandsByKey.start()[key + 1]; i++) {
+                int demandIndex = demandsByKey.demandIndexes()[i];
+                plans[demandIndex] = stock.allocate(key - fromKey, demands.get(demandIndex).quantity());
+            }
+        }
+    }
+
+    record WaveKeys(List<String> skuMrpKeys, int[] keyOfDemand) {
+
+        static WaveKeys intern(List<AllocationDemand> demands) {
+            Map<SkuMrp, Integer> rawIds = new HashMap<>();
+            Map<String, Integer> normalizedIds = new HashMap<>();
+            List<String> skuMrpKeys = new ArrayList<>();
+            int[] keyOfDemand = new int[demands.size()];
+
+            for (int i = 0; i < keyOfDemand.length; i++) {
+                AllocationDemand demand = demands.get(i);
+                SkuMrp raw = new SkuMrp(demand.skuCode(), demand.mrp());
+
+                Integer id = rawIds.get(raw);
+                if (id == null) {
+                    String skuMrpKey = InventoryClient.skuMrpKey(demand.skuCode(), demand.mrp());
+                    id = normalizedIds.get(skuMrpKey);
+                    if (id == null) {
+                        id = skuMrpKeys.size();
+                        normalizedIds.put(skuMrpKey, id);
+                        skuMrpKeys.add(skuMrpKey);
+                    }
+                    rawIds.put(raw, id);
+                }
+                keyOfDemand[i] = id;
+            }
+
+            return new WaveKeys(skuMrpKeys, keyOfDemand);
+        }
+    }
+
+    private record SkuMrp(String skuCode, Double mrp) {
+    }
+
+    /**
+     * Demand indexes bucketed by key id (counting sort), keeping request order within each key.
+     */
+    record DemandsByKey(int[] start, int[] demandIndexes) {
+
+        static DemandsByKey group(WaveKeys keys) {
+            int[] keyOfDemand = keys.keyOfDemand();
+            int[] start = new int[keys.skuMrpKeys().size() + 1];
+
+            for (int key : keyOfDemand) {
+                start[key + 1]++;
+            }
+            for (int key = 1; key < start.length; key++) {
+                start[key] += start[key - 1];
+            }
+
+            int[] next = Arrays.copyOf(start, start.length - 1);
+            int[] demandIndexes = new int[keyOfDemand.length];
+            for (int i = 0; i < keyOfDemand.length; i++) {
+                demandIndexes[next[keyOfDemand[i]]++] = i;
+            }
+
+            return new DemandsByKey(start, demandIndexes);
+        }
+    }
+
+    static final class WaveStock {
+
+        private final InventoryBatchResponse[] batches;
+        private final int[] remaining;
+        private final int[] keyStart;
+        private final int[] cursor;
+        private final boolean[] listed;
+
+        private WaveStock(InventoryBatchResponse[] batches, int[] remaining, int[] keyStart, boolean[] listed) {
+            this.batches = batches;
+            this.remaining = remaining;
+            this.keyStart = keyStart;
+            this.listed = listed;
+            this.cursor = Arrays.copyOf(keyStart, keyStart.length - 1);
+        }
+
+        static WaveStock build(List<String> skuMrpKeys, Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp) {
+            int keyCount = skuMrpKeys.size();
+            int[] keyStart = new int[keyCount + 1];
+            boolean[] listed = new boolean[keyCount];
+            List<InventoryBatchResponse> flattened = new ArrayList<>();
+
+            for (int key = 0; key < keyCount; key++) {
+                keyStart[key] = flattened.size();
+
+                List<InventoryBatchResponse> keyBatches = inventoryBySkuMrp.getOrDefault(skuMrpKeys.get(key), Collections.emptyList());
+                listed[key] = !keyBatches.isEmpty();
+
+                List<InventoryBatchResponse> sorted = new ArrayList<>(keyBatches.size());
+                for (InventoryBatchResponse batch : keyBatches) {
+                    if (batch != null) {
+                        sorted.add(batch);
+                    }
+                }
+                sorted.sort(BY_EXPIRY);
+
+                Set<String> seenBatchNos = new HashSet<>();
+                for (InventoryBatchResponse batch : sorted) {
+                    if (!seenBatchNos.add(batch.getBatchNo())) {
+                        continue;
+                    }
+                    if (batch.getQuantity() != null && batch.getQuantity() > 0) {
+                        flattened.add(batch);
+                    }
+                }
+            }
+            keyStart[keyCount] = flattened.size();
+
+            InventoryBatchResponse[] batches = flattened.toArray(new InventoryBatchResponse[0]);
+            int[] remaining = new int[batches.length];
+            for (int i = 0; i < batches.length; i++) {
+                remaining[i] = batches[i].getQuantity();
+            }
+
+            return new WaveStock(batches, remaining, keyStart, listed);
+        }
+
+        AllocationPlan allocate(int key, int requestedQty) {
+
+            if (!listed[key]) {
+                return AllocationPlan.failed(NO_INVENTORY_MESSAGE);
+            }
+
+            int end = keyStart[key + 1];
+            int pos = cursor[key];
+
+            if (pos == end || requestedQty <= 0) {
+                return AllocationPlan.failed(INSUFFICIENT_STOCK_MESSAGE);
+            }
+
+            int remainingQty = requestedQty;
+            int totalAllocated = 0;
+            List<BatchAllocationDetail> allocationDetails = new ArrayList<>(2);
+
+            while (remainingQty > 0 && pos < end) {
+                int allocateQty = Math.min(remainingQty, remaining[pos]);
+                InventoryBatchResponse batch = batches[pos];
+
+                allocationDetails.add(
+                        BatchAllocationDetail.builder()
+                                .batchNo(batch.getBatchNo())
+                                .expiryDate(batch.getExpiryDate())
+                                .mrp(batch.getMrp())
+                                .allocatedQty(allocateQty)
+                                .build()
+                );
+
+                remaining[pos] -= allocateQty;
+                remainingQty -= allocateQty;
+                totalAllocated += allocateQty;
+
+                if (remaining[pos] == 0) {
+                    pos++;
+                }
+            }
+
+            cursor[key] = pos;
+
+            return AllocationPlan.allocated(allocationDetails, totalAllocated);
+        }
+    }
+}
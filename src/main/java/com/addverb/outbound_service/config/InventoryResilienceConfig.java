@@ -0,0 +1,65 @@
+package com.addverb.outbound_service.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClientException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+
+@Configuration
+@Slf4j
+public class InventoryResilienceConfig {
+
+    /**
+     * Only transport failures, timeouts and 5xx responses count against the inventory service; business
+     * rejections (4xx, e.g. insufficient stock on /save) are ignored so they never open the circuit.
+     */
+    @Bean
+    public CircuitBreaker inventoryCircuitBreaker(
+            @Value("${app.inventory.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${app.inventory.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+            @Value("${app.inventory.circuit-breaker.slow-call-duration-ms:5000}") long slowCallDurationMillis,
+            @Value("${app.inventory.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${app.inventory.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+            @Value("${app.inventory.circuit-breaker.wait-in-open-state-ms:10000}") long waitInOpenStateMillis,
+            @Value("${app.inventory.circuit-breaker.permitted-calls-in-half-open-state:3}") int permittedCallsInHalfOpenState) {
+
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("inventory", CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMillis))
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(Duration.ofMillis(waitInOpenStateMillis))
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .recordExceptions(WebClientException.class, TimeoutException.class)
+                .build());
+
+        circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> log.warn("Inventory circuit breaker {}", event.getStateTransition()));
+
+        return circuitBreaker;
+    }
+
+    /**
+     * Caps concurrent inventory calls. Reactive calls never wait for a permit, so a full bulkhead fails fast.
+     */
+    @Bean
+    public Bulkhead inventoryBulkhead(
+            @Value("${app.inventory.bulkhead.max-concurrent-calls:32}") int maxConcurrentCalls) {
+
+        return Bulkhead.of("inventory", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+    }
+}
@@ -0,0 +1,91 @@
+package com.addverb.outbound_service.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Refuses to start against a database that still needs {@code db/scripts/001_orders_sequence_ids.sql} or
+ * {@code db/scripts/003_order_number_sequence.sql}.
+ * <p>
+ * Orders and allocation lines take their ids from pooled sequences. On a database created while they used
+ * IDENTITY columns every insert would fail, and a sequence behind the table's highest id would hand out
+ * duplicate keys, so both conditions stop the application with a pointer to the migration script. Order
+ * numbers come from {@code order_number_seq}, which only the migration script creates.
+ */
+@Component
+@ConditionalOnProperty(name = "app.db.schema-check.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class SequenceIdSchemaCheck implements SmartInitializingSingleton {
+
+    private static final String MIGRATION_SCRIPT = "db/scripts/001_orders_sequence_ids.sql";
+    private static final String ORDER_NUMBER_SEQUENCE = "order_number_seq";
+    private static final String ORDER_NUMBER_SCRIPT = "db/scripts/003_order_number_sequence.sql";
+
+    private static final List<SequencedTable> SEQUENCED_TABLES = List.of(
+            new SequencedTable("orders", "orders_seq"),
+            new SequencedTable("order_allocations", "order_allocations_seq")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+
+        List<String> problems = new ArrayList<>();
+
+        for (SequencedTable sequenced : SEQUENCED_TABLES) {
+
+            Long currentValue = jdbcTemplate.query(
+                    "SELECT CAST(current_value AS BIGINT) FROM sys.sequences WHERE name = ?",
+                    rs -> rs.next() ? rs.getLong(1) : null,
+                    sequenced.sequence());
+
+            if (currentValue == null) {
+                problems.add("sequence " + sequenced.sequence() + " is missing");
+                continue;
+            }
+
+            Integer identity = jdbcTemplate.queryForObject(
+                    "SELECT COLUMNPROPERTY(OBJECT_ID(?), 'id', 'IsIdentity')", Integer.class, sequenced.table());
+
+            if (identity != null && identity == 1) {
+                problems.add(sequenced.table() + ".id is still an IDENTITY column");
+                continue;
+            }
+
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + sequenced.table(), Long.class);
+
+            if (maxId != null && currentValue < maxId) {
+                problems.add("sequence " + sequenced.sequence() + " (at " + currentValue + ") is behind "
+                        + sequenced.table() + ".id (max " + maxId + ")");
+            }
+        }
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Database schema is not migrated to sequence ids: "
+                    + String.join("; ", problems) + ". Run " + MIGRATION_SCRIPT + " with the application stopped.");
+        }
+
+        Integer orderNumberSequences = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM sys.sequences WHERE name = ?", Integer.class, ORDER_NUMBER_SEQUENCE);
+
+        if (orderNumberSequences == null || orderNumberSequences == 0) {
+            throw new IllegalStateException("Database schema is missing sequence " + ORDER_NUMBER_SEQUENCE
+                    + ". Run " + ORDER_NUMBER_SCRIPT + ".");
+        }
+
+        log.debug("Sequence id schema check passed");
+    }
+
+    private record SequencedTable(String table, String sequence) {
+    }
+}
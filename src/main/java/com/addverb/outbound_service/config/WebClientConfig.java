@@ -1,19 +1,62 @@
 package com.addverb.outbound_service.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 
 @Configuration
 public class WebClientConfig {
 
+    /**
+     * Bounded, instrumented pool for inventory traffic. With metrics enabled Reactor Netty publishes
+     * {@code reactor.netty.connection.provider.*} gauges (active / idle / pending connections) and the
+     * pending-acquire timer to the global Micrometer registry, which the actuator exposes.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider inventoryConnectionProvider(
+            @Value("${app.inventory.http.max-connections:200}") int maxConnections,
+            @Value("${app.inventory.http.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${app.inventory.http.pending-acquire-timeout-ms:5000}") long pendingAcquireTimeoutMillis,
+            @Value("${app.inventory.http.max-idle-time-ms:30000}") long maxIdleTimeMillis,
+            @Value("${app.inventory.http.max-life-time-ms:300000}") long maxLifeTimeMillis,
+            @Value("${app.inventory.http.evict-in-background-ms:30000}") long evictInBackgroundMillis) {
+
+        return ConnectionProvider.builder("inventory")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMillis))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMillis))
+                .evictInBackground(Duration.ofMillis(evictInBackgroundMillis))
+                .metrics(true)
+                .build();
+    }
+
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder().build();
+    public WebClient webClient(
+            ConnectionProvider inventoryConnectionProvider,
+            @Value("${app.inventory.http.connect-timeout-ms:2000}") int connectTimeoutMillis,
+            @Value("${app.inventory.http.response-timeout-ms:10000}") long responseTimeoutMillis,
+            @Value("${app.inventory.http.keep-alive:true}") boolean keepAlive) {
+
+        HttpClient httpClient = HttpClient.create(inventoryConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                .option(ChannelOption.SO_KEEPALIVE, keepAlive)
+                .keepAlive(keepAlive)
+                // Installed per request and removed once the response completes, so pooled connections idle freely
+                .responseTimeout(Duration.ofMillis(responseTimeoutMillis))
+                .metrics(true, uri -> uri.replaceAll("\\?.*$", ""));
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
     }
 }
-
-
-
-
@@ -4,16 +4,26 @@ import com.addverb.outbound_service.common.ApiResponse;
 import com.addverb.outbound_service.dto.*;
 import com.addverb.outbound_service.enums.OrderExportDateFilter;
 import com.addverb.outbound_service.enums.OrderStatus;
+import com.addverb.outbound_service.exception.BusinessException;
+import com.addverb.outbound_service.service.BulkAllocationJobService;
+import com.addverb.outbound_service.service.OrderNdjsonStreamingService;
 import com.addverb.outbound_service.service.OrderService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -25,6 +35,11 @@ import java.time.LocalDateTime;
 public class OrderController {
 
     private final OrderService orderService;
+    private final BulkAllocationJobService bulkAllocationJobService;
+    private final OrderNdjsonStreamingService orderNdjsonStreamingService;
+
+    @Value("${app.orders.stream.timeout-ms:1800000}")
+    private long orderStreamTimeoutMillis;
 
     @PostMapping
     public ResponseEntity<ApiResponse<OrderResponse>> createOrder(@Valid @RequestBody CreateOrderRequest request) {
@@ -66,6 +81,62 @@ public class OrderController {
         );
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPagedResponse<OrderResponse>>> getOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(value = 1, message = "Size must be at least 1") @Max(value = 200, message = "Size must be at most 200") int size,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String skuCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate
+    ) {
+
+        CursorPagedResponse<OrderResponse> response = orderService.getOrdersByCursor(cursor, size, status, skuCode, fromDate, toDate);
+
+        return ResponseEntity.ok(
+                ApiResponse.<CursorPagedResponse<OrderResponse>>builder()
+                        .success(true)
+                        .message("Orders fetched successfully")
+                        .data(response)
+                        .build()
+        );
+    }
+
+    /**
+     * Streams every matching order as one JSON object per line, without building the full list in memory.
+     * Runs as an async task with its own timeout, so long exports do not raise the async timeout of every
+     * other endpoint.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> streamOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String skuCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate,
+            HttpServletResponse response
+    ) {
+
+        if (fromDate != null && toDate != null && fromDate.isAfter(toDate))
+            throw new BusinessException("From Date must be less than To Date");
+
+        // Reserved before going async, so a rejected request gets a plain 429 and holds nothing
+        OrderNdjsonStreamingService.StreamSlot slot = orderNdjsonStreamingService.reserveSlot();
+
+        WebAsyncTask<Void> task = new WebAsyncTask<>(orderStreamTimeoutMillis, () -> {
+            if (!slot.start())
+                return null;
+
+            try (slot) {
+                response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+                orderService.streamOrders(status, skuCode, fromDate, toDate, response.getOutputStream());
+                return null;
+            }
+        });
+        task.onCompletion(slot::abandon);
+
+        return task;
+    }
+
     @PostMapping("/{orderNumber}/allocate")
     public ResponseEntity<ApiResponse<AllocationResponse>> allocateOrder(@PathVariable String orderNumber) {
 
@@ -80,6 +151,19 @@ public class OrderController {
         );
     }
 
+    @PostMapping("/{orderNumber}/allocate/reactive")
+    public Mono<ResponseEntity<ApiResponse<AllocationResponse>>> allocateOrderReactive(@PathVariable String orderNumber) {
+
+        return orderService.allocateOrderReactive(orderNumber)
+                .map(response -> ResponseEntity.ok(
+                        ApiResponse.<AllocationResponse>builder()
+                                .success(true)
+                                .message("Allocation Completed Successfully")
+                                .data(response)
+                                .build()
+                ));
+    }
+
     @PostMapping("/allocate/bulk")
     public ResponseEntity<ApiResponse<BulkAllocationResponse>> allocateOrdersBulk(
             @Valid @RequestBody BulkAllocateOrdersRequest request) {
@@ -96,6 +180,56 @@ public class OrderController {
         );
     }
 
+    @PostMapping("/allocate/bulk/jobs")
+    public ResponseEntity<ApiResponse<BulkAllocationJobResponse>> submitBulkAllocationJob(
+            @Valid @RequestBody BulkAllocateOrdersRequest request) {
+
+        BulkAllocationJobResponse response =
+                bulkAllocationJobService.submit(request.getOrderNumbers());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+                ApiResponse.<BulkAllocationJobResponse>builder()
+                        .success(true)
+                        .message("Bulk allocation job accepted")
+                        .data(response)
+                        .build()
+        );
+    }
+
+    @GetMapping("/allocate/bulk/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<BulkAllocationJobResponse>> getBulkAllocationJob(@PathVariable String jobId) {
+
+        BulkAllocationJobResponse response = bulkAllocationJobService.getJob(jobId);
+
+        return ResponseEntity.ok(
+                ApiResponse.<BulkAllocationJobResponse>builder()
+                        .success(true)
+                        .message("Bulk allocation job fetched successfully")
+                        .data(response)
+                        .build()
+        );
+    }
+
+    @GetMapping(value = "/allocate/bulk/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BulkAllocationJobEvent>> streamBulkAllocationJobEvents(@PathVariable String jobId) {
+        return bulkAllocationJobService.streamEvents(jobId);
+    }
+
+    @PostMapping("/allocate/simulate")
+    public ResponseEntity<ApiResponse<AllocationSimulationResponse>> simulateAllocation(
+            @Valid @RequestBody AllocationSimulationRequest request) {
+
+        AllocationSimulationResponse response = orderService.simulateAllocation(request);
+
+        return ResponseEntity.ok(
+                ApiResponse.<AllocationSimulationResponse>builder()
+                        .success(true)
+                        .message("Allocation simulation completed")
+                        .data(response)
+                        .build()
+        );
+    }
+
     @GetMapping("/summary")
     public ResponseEntity<ApiResponse<DashboardSummaryResponse>> getSummary() {
 
@@ -0,0 +1,21 @@
+package com.addverb.outbound_service.dto;
+
+import com.addverb.outbound_service.inventory.InventoryBatchesBySkuMrpResponse;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AllocationSimulationRequest {
+
+    @NotEmpty(message = "Order numbers are required")
+    private List<String> orderNumbers;
+
+    /**
+     * Optional batch snapshot to plan against instead of a live /available lookup.
+     */
+    private List<InventoryBatchesBySkuMrpResponse> inventorySnapshot;
+
+    private boolean includeResults;
+}
@@ -0,0 +1,21 @@
+package com.addverb.outbound_service.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+
+@Data
+@Builder
+public class AllocationSimulationResponse {
+    private String snapshotSource;
+    private int totalOrders;
+    private int completedCount;
+    private int partialCount;
+    private int failureCount;
+    private long requestedQty;
+    private long allocatableQty;
+    private long planningMillis;
+    private List<BulkOrderAllocationResult> results;
+}
@@ -0,0 +1,22 @@
+package com.addverb.outbound_service.dto;
+
+import com.addverb.outbound_service.enums.BulkAllocationJobStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+
+@Data
+@Builder
+public class BulkAllocationJobEvent {
+    private String jobId;
+    private BulkAllocationJobStatus status;
+    private int chunkIndex;
+    private int totalOrders;
+    private int processedOrders;
+    private int successCount;
+    private int failureCount;
+    private String message;
+    private List<BulkOrderAllocationResult> results;
+}
@@ -0,0 +1,22 @@
+package com.addverb.outbound_service.dto;
+
+import com.addverb.outbound_service.enums.BulkAllocationJobStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+@Data
+@Builder
+public class BulkAllocationJobResponse {
+    private String jobId;
+    private BulkAllocationJobStatus status;
+    private int totalOrders;
+    private int processedOrders;
+    private int successCount;
+    private int failureCount;
+    private int chunkSize;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
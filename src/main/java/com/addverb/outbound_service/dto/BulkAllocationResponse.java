@@ -12,6 +12,8 @@ public class BulkAllocationResponse {
     private int successCount;
     private int failureCount;
     private List<BulkOrderAllocationResult> results;
+    private Integer deductionItemsBeforeCompaction;
+    private Integer deductionItemsSent;
 }
 
 
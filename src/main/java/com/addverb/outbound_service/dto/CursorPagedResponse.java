@@ -0,0 +1,16 @@
+package com.addverb.outbound_service.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+
+@Data
+@Builder
+public class CursorPagedResponse<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasMore;
+    private String nextCursor;
+}
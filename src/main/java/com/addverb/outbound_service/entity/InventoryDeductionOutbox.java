@@ -0,0 +1,68 @@
+package com.addverb.outbound_service.entity;
+
+import com.addverb.outbound_service.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+
+@Entity
+@Table(
+        name = "inventory_deduction_outbox",
+        indexes = {
+                @Index(name = "ix_deduction_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+                @Index(name = "ix_deduction_outbox_dispatch_key", columnList = "dispatch_key"),
+                @Index(name = "ix_deduction_outbox_sku_code", columnList = "sku_code")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryDeductionOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_deduction_outbox_seq")
+    @SequenceGenerator(name = "inventory_deduction_outbox_seq", sequenceName = "inventory_deduction_outbox_seq", allocationSize = 100)
+    private Long id;
+
+    @Column(name = "sku_code", nullable = false)
+    private String skuCode;
+
+    @Column(nullable = false)
+    private Double mrp;
+
+    @Column(name = "batch_no", nullable = false)
+    private String batchNo;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * Assigned on the first dispatch and sent as the /save idempotency key; every retry resends the same rows
+     * under the same key.
+     */
+    @Column(name = "dispatch_key")
+    private String dispatchKey;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
@@ -3,13 +3,21 @@ package com.addverb.outbound_service.entity;
 import com.addverb.outbound_service.enums.OrderStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 
 @Entity
-@Table(name = "orders")
+@Table(
+        name = "orders",
+        indexes = {
+                @Index(name = "ix_orders_status_created_at", columnList = "status, created_at"),
+                @Index(name = "ix_orders_created_at_id", columnList = "created_at, id"),
+                @Index(name = "ix_orders_sku_code_created_at", columnList = "sku_code, created_at")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,7 +26,8 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_number", unique = true, nullable = false)
@@ -52,6 +61,11 @@ public class Order {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
     private List<OrderAllocation> allocations;
 
@@ -7,7 +7,10 @@ import java.time.LocalDate;
 
 
 @Entity
-@Table(name = "order_allocations")
+@Table(
+        name = "order_allocations",
+        indexes = @Index(name = "ix_order_allocations_order_id", columnList = "order_id")
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,7 +19,8 @@ import java.time.LocalDate;
 public class OrderAllocation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_allocations_seq")
+    @SequenceGenerator(name = "order_allocations_seq", sequenceName = "order_allocations_seq", allocationSize = 100)
     private Long id;
 
     @Column(name = "sku_code")
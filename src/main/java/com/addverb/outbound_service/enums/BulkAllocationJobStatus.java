@@ -0,0 +1,8 @@
+package com.addverb.outbound_service.enums;
+
+public enum BulkAllocationJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
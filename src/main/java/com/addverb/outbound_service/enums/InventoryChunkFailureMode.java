@@ -0,0 +1,6 @@
+package com.addverb.outbound_service.enums;
+
+public enum InventoryChunkFailureMode {
+    FAIL,
+    DEGRADE
+}
@@ -0,0 +1,7 @@
+package com.addverb.outbound_service.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
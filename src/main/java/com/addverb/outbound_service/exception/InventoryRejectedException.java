@@ -0,0 +1,13 @@
+package com.addverb.outbound_service.exception;
+
+/**
+ * The inventory service answered with a 4xx and did not apply the request, e.g. {@code /save} refused a deduction
+ * for insufficient stock. Unlike other {@link InventoryServiceException}s the outcome is known, so the caller may
+ * re-plan and try again.
+ */
+public class InventoryRejectedException extends InventoryServiceException {
+
+    public InventoryRejectedException(String message) {
+        super(message);
+    }
+}
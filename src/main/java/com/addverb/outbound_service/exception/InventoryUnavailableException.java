@@ -0,0 +1,16 @@
+package com.addverb.outbound_service.exception;
+
+import lombok.Getter;
+
+/**
+ * Raised without calling the inventory service, when its circuit breaker is open or its bulkhead is full.
+ */
+@Getter
+public class InventoryUnavailableException extends RuntimeException {
+    private final String errorCode;
+
+    public InventoryUnavailableException(String message, String errorCode) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+}
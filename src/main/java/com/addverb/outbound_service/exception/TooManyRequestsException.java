@@ -0,0 +1,16 @@
+package com.addverb.outbound_service.exception;
+
+import lombok.Getter;
+
+/**
+ * Raised when a bounded local resource (job queue, stream slots) is full; the client should retry later.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    private final String errorCode;
+
+    public TooManyRequestsException(String message, String errorCode) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+}
@@ -0,0 +1,695 @@
+package com.addverb.outbound_service.inventory;
+
+import com.addverb.outbound_service.exception.InventoryServiceException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass decoder for {@code /available} bodies.
+ * <p>
+ * The body is fed to Jackson's non-blocking parser as it arrives, on the thread delivering it, and the shape is
+ * recognised from the leading tokens. Only the value being bound at the moment is buffered as tokens, and rows are
+ * emitted as soon as they are complete, so neither the raw body nor a {@link JsonNode} tree of the whole response
+ * is ever held. Accepted shapes:
+ * <ul>
+ *     <li>an array of {@code {sku, mrp, batches}} objects, or one such object</li>
+ *     <li>{@code {success, message, data}} envelopes whose {@code data} is one of the above</li>
+ *     <li>{@code data} as a map keyed by {@code sku||mrp} with batch arrays as values</li>
+ *     <li>{@code data} as flat batch rows carrying {@code sku} and {@code batchNo}; rows are grouped per SKU||MRP
+ *     and emitted once the array ends, since rows of one key need not be adjacent</li>
+ * </ul>
+ * Envelope rows are held until the root object ends: a root that is itself a sku/mrp object wins over its
+ * {@code data}, and {@code success: false} fails the response, wherever those fields appear. For the same reason a
+ * value that cannot be mapped is skipped and only fails the response if it would have been used.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryAvailableResponseDecoder {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Decodes a response body as it arrives. Each buffer is parsed as far as it goes and released, so decoding
+     * never waits for input and runs on the connection's event loop.
+     */
+    public Flux<InventoryBatchesBySkuMrpResponse> decode(Flux<DataBuffer> body) {
+        return Flux.defer(() -> {
+                    ResponseParser parser = new ResponseParser();
+                    return body.concatMapIterable(parser::feed)
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(parser.endOfInput())))
+                            .doFinally(signal -> parser.close());
+                })
+                .onErrorMap(this::translate);
+    }
+
+    public List<InventoryBatchesBySkuMrpResponse> decode(String rawResponse) {
+
+        List<InventoryBatchesBySkuMrpResponse> rows = new ArrayList<>();
+
+        if (rawResponse == null || rawResponse.isBlank()) {
+            return rows;
+        }
+
+        ResponseParser parser = new ResponseParser();
+        try {
+            rows.addAll(parser.feed(rawResponse.getBytes(StandardCharsets.UTF_8)));
+            rows.addAll(parser.endOfInput());
+        } finally {
+            parser.close();
+        }
+
+        return rows;
+    }
+
+    private InventoryBatchesBySkuMrpResponse readSkuMrpMapEntry(String key, JsonParser parser) throws IOException {
+
+        String[] parts = key.split("\\|\\|", 2);
+        if (parts.length != 2) {
+            return null;
+        }
+
+        Double mrp;
+        try {
+            mrp = Double.parseDouble(parts[1]);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+
+        List<InventoryBatchResponse> batches = new ArrayList<>();
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            InventoryBatchResponse batch = readMapBatch(parser);
+            if (batch.getBatchNo() != null) {
+                batches.add(batch);
+            }
+        }
+
+        InventoryBatchesBySkuMrpResponse row = new InventoryBatchesBySkuMrpResponse();
+        row.setSku(parts[0]);
+        row.setMrp(mrp);
+        row.setBatches(batches);
+        return row;
+    }
+
+    private InventoryBatchResponse readMapBatch(JsonParser parser) throws IOException {
+
+        InventoryBatchResponse batch = new InventoryBatchResponse();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (field) {
+                case "batchNo" -> batch.setBatchNo(value.isStructStart() ? "" : parser.getValueAsString(null));
+                case "mrp" -> batch.setMrp(parser.getValueAsDouble());
+                case "quantity" -> batch.setQuantity(parser.getValueAsInt());
+                case "expiryDate" -> {
+                    try {
+                        batch.setExpiryDate(LocalDate.parse(parser.getValueAsString("")));
+                    } catch (Exception ignored) {
+                    }
+                }
+                default -> {
+                }
+            }
+
+            parser.skipChildren();
+        }
+
+        return batch;
+    }
+
+    private InventoryServiceException unexpectedShape() {
+        return new InventoryServiceException("Inventory fetch failed: Unexpected /available response shape");
+    }
+
+    private RuntimeException translate(Throwable ex) {
+
+        Throwable cause = ex instanceof IOException && ex.getCause() != null ? ex.getCause() : ex;
+
+        if (cause instanceof InventoryServiceException || cause instanceof WebClientException) {
+            return (RuntimeException) cause;
+        }
+
+        return new InventoryServiceException("Inventory response parsing failed: " + ex.getMessage());
+    }
+
+    private static JsonStreamContext enclosingContext(JsonParser parser) {
+        JsonStreamContext context = parser.getParsingContext();
+        return parser.currentToken().isStructStart() ? context.getParent() : context;
+    }
+
+    /**
+     * Moves past the rest of a value whose mapping failed part-way, leaving the parser on its last token as a
+     * successful read would.
+     */
+    private static DatabindException skipFailedValue(JsonParser parser, JsonStreamContext enclosing, DatabindException ex) throws IOException {
+        while (parser.getParsingContext() != enclosing) {
+            if (parser.nextToken() == null) {
+                throw ex;
+            }
+        }
+        return ex;
+    }
+
+    private static int depthChange(JsonToken token) {
+        if (token.isStructStart()) {
+            return 1;
+        }
+        return token.isStructEnd() ? -1 : 0;
+    }
+
+    private enum ParseState {
+        START,
+        ROOT_ARRAY,
+        ROOT_FIELDS,
+        ROOT_VALUE,
+        DATA_ARRAY,
+        DATA_FIELDS,
+        DATA_VALUE,
+        DONE
+    }
+
+    @FunctionalInterface
+    private interface ValueReader {
+        void read(JsonParser value, Consumer<InventoryBatchesBySkuMrpResponse> emit) throws IOException;
+    }
+
+    /**
+     * Decoding state of one response. Tokens are pushed in as the non-blocking parser produces them; a value that
+     * is bound through the mapper or read field by field is first captured into a {@link TokenBuffer} and then
+     * replayed, so only one such value is ever buffered.
+     */
+    private final class ResponseParser {
+
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private ParseState state = ParseState.START;
+        private String field;
+        private int skipDepth;
+
+        private TokenBuffer capture;
+        private int captureDepth;
+        private ValueReader captureReader;
+
+        private final SkuMrpFields rootFields = new SkuMrpFields();
+        private Boolean success;
+        private String message;
+        private boolean dataRecognised;
+        private DatabindException dataFailure;
+        private final List<InventoryBatchesBySkuMrpResponse> dataRows = new ArrayList<>();
+
+        private int dataElements;
+        private FlatRowGrouping flatRows;
+        private SkuMrpFields dataFields;
+        private int mapRows;
+
+        ResponseParser() {
+            try {
+                this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException ex) {
+                throw translate(ex);
+            }
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        List<InventoryBatchesBySkuMrpResponse> feed(DataBuffer buffer) {
+            try {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                return feed(bytes);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        List<InventoryBatchesBySkuMrpResponse> feed(byte[] bytes) {
+
+            // Whatever follows the root value is ignored, as a pull parser never reads past it
+            if (state == ParseState.DONE) {
+                return List.of();
+            }
+
+            try {
+                feeder.feedInput(bytes, 0, bytes.length);
+                return drain();
+            } catch (Exception ex) {
+                throw translate(ex);
+            }
+        }
+
+        List<InventoryBatchesBySkuMrpResponse> endOfInput() {
+
+            if (state == ParseState.DONE) {
+                return List.of();
+            }
+
+            try {
+                feeder.endOfInput();
+                List<InventoryBatchesBySkuMrpResponse> rows = drain();
+                if (state != ParseState.START && state != ParseState.DONE) {
+                    throw new InventoryServiceException("Inventory response parsing failed: Unexpected end of input");
+                }
+                return rows;
+            } catch (Exception ex) {
+                throw translate(ex);
+            }
+        }
+
+        void close() {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private List<InventoryBatchesBySkuMrpResponse> drain() throws IOException {
+
+            List<InventoryBatchesBySkuMrpResponse> rows = new ArrayList<>();
+            JsonToken token;
+
+            while (state != ParseState.DONE && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                onToken(token, rows::add);
+            }
+
+            return rows;
+        }
+
+        private void onToken(JsonToken token, Consumer<InventoryBatchesBySkuMrpResponse> emit) throws IOException {
+
+            if (capture != null) {
+                captureToken(token, emit);
+                return;
+            }
+
+            if (skipDepth > 0) {
+                skipDepth += depthChange(token);
+                return;
+            }
+
+            switch (state) {
+                case START -> {
+                    if (token == JsonToken.START_ARRAY) {
+                        state = ParseState.ROOT_ARRAY;
+                    } else if (token == JsonToken.START_OBJECT) {
+                        state = ParseState.ROOT_FIELDS;
+                    } else {
+                        throw unexpectedShape();
+                    }
+                }
+                case ROOT_ARRAY -> {
+                    if (token == JsonToken.END_ARRAY) {
+                        state = ParseState.DONE;
+                    } else {
+                        capture(token, this::readRootElement, emit);
+                    }
+                }
+                case ROOT_FIELDS -> {
+                    if (token == JsonToken.FIELD_NAME) {
+                        field = parser.currentName();
+                        state = ParseState.ROOT_VALUE;
+                    } else {
+                        state = ParseState.DONE;
+                        finishRoot(emit);
+                    }
+                }
+                case ROOT_VALUE -> {
+                    state = ParseState.ROOT_FIELDS;
+                    readRootValue(token, emit);
+                }
+                case DATA_ARRAY -> {
+                    if (token == JsonToken.END_ARRAY) {
+                        state = ParseState.ROOT_FIELDS;
+                        finishDataArray();
+                    } else {
+                        capture(token, this::readDataElement, emit);
+                    }
+                }
+                case DATA_FIELDS -> {
+                    if (token == JsonToken.FIELD_NAME) {
+                        field = parser.currentName();
+                        state = ParseState.DATA_VALUE;
+                    } else {
+                        state = ParseState.ROOT_FIELDS;
+                        finishDataObject();
+                    }
+                }
+                case DATA_VALUE -> {
+                    state = ParseState.DATA_FIELDS;
+                    String entry = field;
+                    capture(token, (value, ignored) -> readDataEntry(entry, value), emit);
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void capture(JsonToken token, ValueReader reader, Consumer<InventoryBatchesBySkuMrpResponse> emit) throws IOException {
+            capture = new TokenBuffer(parser);
+            captureDepth = 0;
+            captureReader = reader;
+            captureToken(token, emit);
+        }
+
+        private void captureToken(JsonToken token, Consumer<InventoryBatchesBySkuMrpResponse> emit) throws IOException {
+
+            capture.copyCurrentEvent(parser);
+            captureDepth += depthChange(token);
+
+            if (captureDepth > 0) {
+                return;
+            }
+
+            TokenBuffer captured = capture;
+            ValueReader reader = captureReader;
+            capture = null;
+            captureReader = null;
+
+            try (JsonParser value = captured.asParser(objectMapper)) {
+                value.nextToken();
+                reader.read(value, emit);
+            }
+        }
+
+        private void skip(JsonToken token) {
+            if (token.isStructStart()) {
+                skipDepth = 1;
+            }
+        }
+
+        private void readRootElement(JsonParser value, Consumer<InventoryBatchesBySkuMrpResponse> emit) throws IOException {
+            InventoryBatchesBySkuMrpResponse row = objectMapper.readValue(value, InventoryBatchesBySkuMrpResponse.class);
+            if (row != null) {
+                emit.accept(row);
+            }
+        }
+
+        private void readRootValue(JsonToken value, Consumer<InventoryBatchesBySkuMrpResponse> emit) throws IOException {
+
+            String name = field;
+
+            if (SkuMrpFields.declares(name)) {
+                capture(value, (captured, ignored) -> rootFields.accept(name, captured, objectMapper), emit);
+                return;
+            }
+
+            // Envelope fields are unknown to the sku/mrp shape, so they only matter if the root turns out to be one
+            rootFields.unrecognised(name, parser, objectMapper);
+
+            switch (name) {
+                case "success" -> {
+                    success = value == JsonToken.VALUE_NULL || value.isStructStart() ? null : parser.getValueAsBoolean(true);
+                    skip(value);
+                }
+                case "message" -> {
+                    message = value.isStructStart() ? "" : parser.getValueAsString(null);
+                    skip(value);
+                }
+                case "data" -> {
+                    if (Boolean.FALSE.equals(success)) {
+                        skip(value);
+                    } else {
+                        startData(value);
+                    }
+                }
+                default -> skip(value);
+            }
+        }
+
+        private void startData(JsonToken value) {
+
+            if (value == JsonToken.START_ARRAY) {
+                state = ParseState.DATA_ARRAY;
+                dataElements = 0;
+                flatRows = null;
+            } else if (value == JsonToken.START_OBJECT) {
+                state = ParseState.DATA_FIELDS;
+                dataFields = new SkuMrpFields();
+                mapRows = 0;
+            } else {
+                dataRecognised = false;
+            }
+        }
+
+        private void readDataElement(JsonParser value, Consumer<InventoryBatchesBySkuMrpResponse> ignored) throws IOException {
+            try {
+                if (dataElements++ == 0) {
+                    readFirstDataElement(value);
+                } else if (flatRows != null) {
+                    flatRows.add(objectMapper.readValue(value, InventoryFlatBatchRow.class));
+                } else {
+                    InventoryBatchesBySkuMrpResponse row = objectMapper.readValue(value, InventoryBatchesBySkuMrpResponse.class);
+                    if (row != null) {
+                        dataRows.add(row);
+                    }
+                }
+            } catch (DatabindException ex) {
+                failData(ex);
+            }
+        }
+
+        private void readFirstDataElement(JsonParser value) throws IOException {
+
+            // Only the first element is read as a tree, to tell flat batch rows from sku/mrp objects
+            JsonNode firstElement = objectMapper.readTree(value);
+
+            if (firstElement.isObject() && firstElement.has("sku") && firstElement.has("batchNo")) {
+                flatRows = new FlatRowGrouping();
+                flatRows.add(objectMapper.treeToValue(firstElement, InventoryFlatBatchRow.class));
+                return;
+            }
+
+            InventoryBatchesBySkuMrpResponse firstRow = objectMapper.treeToValue(firstElement, InventoryBatchesBySkuMrpResponse.class);
+            if (firstRow != null) {
+                dataRows.add(firstRow);
+            }
+        }
+
+        private void finishDataArray() {
+            if (flatRows != null) {
+                flatRows.emit(dataRows::add);
+            }
+            dataRecognised = true;
+        }
+
+        private void readDataEntry(String name, JsonParser value) throws IOException {
+            try {
+                if (value.currentToken() == JsonToken.START_ARRAY) {
+                    InventoryBatchesBySkuMrpResponse row = readSkuMrpMapEntry(name, value);
+                    if (row != null) {
+                        dataRows.add(row);
+                        mapRows++;
+                        return;
+                    }
+                }
+
+                if (!dataFields.accept(name, value, objectMapper)) {
+                    dataFields.unrecognised(name, value, objectMapper);
+                    value.skipChildren();
+                }
+            } catch (DatabindException ex) {
+                failData(ex);
+            }
+        }
+
+        private void finishDataObject() {
+
+            if (mapRows > 0) {
+                dataRecognised = true;
+                return;
+            }
+
+            if (!dataFields.isComplete()) {
+                dataRecognised = false;
+                return;
+            }
+
+            try {
+                dataRows.add(dataFields.toResponse());
+                dataRecognised = true;
+            } catch (DatabindException ex) {
+                dataFailure = ex;
+            }
+        }
+
+        /**
+         * Records why {@code data} could not be mapped and skips the rest of it.
+         */
+        private void failData(DatabindException ex) {
+            dataFailure = ex;
+            state = ParseState.ROOT_FIELDS;
+            skipDepth = 1;
+        }
+
+        private void finishRoot(Consumer<InventoryBatchesBySkuMrpResponse> emit) throws IOException {
+
+            if (rootFields.isComplete()) {
+                emit.accept(rootFields.toResponse());
+                return;
+            }
+
+            if (Boolean.FALSE.equals(success)) {
+                throw new InventoryServiceException("Inventory fetch failed: " + (message != null ? message : "Inventory fetch failed"));
+            }
+
+            if (dataFailure != null) {
+                throw dataFailure;
+            }
+
+            if (!dataRecognised) {
+                throw unexpectedShape();
+            }
+
+            dataRows.forEach(emit);
+        }
+    }
+
+    /**
+     * Collects the {@code sku}, {@code mrp} and {@code batches} fields of an object whose other fields are
+     * streamed, so a bare sku/mrp object can be recognised without building a tree for it.
+     */
+    private static final class SkuMrpFields {
+
+        private boolean hasSku;
+        private boolean hasMrp;
+        private boolean hasBatches;
+        private String sku;
+        private Double mrp;
+        private List<InventoryBatchResponse> batches;
+        private DatabindException failure;
+
+        static boolean declares(String field) {
+            return field.equals("sku") || field.equals("mrp") || field.equals("batches");
+        }
+
+        boolean accept(String field, JsonParser parser, ObjectMapper objectMapper) throws IOException {
+
+            if (!declares(field)) {
+                return false;
+            }
+
+            JsonStreamContext enclosing = enclosingContext(parser);
+
+            try {
+                switch (field) {
+                    case "sku" -> {
+                        hasSku = true;
+                        sku = objectMapper.readValue(parser, String.class);
+                    }
+                    case "mrp" -> {
+                        hasMrp = true;
+                        mrp = objectMapper.readValue(parser, Double.class);
+                    }
+                    default -> {
+                        hasBatches = true;
+                        InventoryBatchResponse[] read = objectMapper.readValue(parser, InventoryBatchResponse[].class);
+                        batches = read == null ? null : Arrays.asList(read);
+                    }
+                }
+            } catch (DatabindException ex) {
+                failure = skipFailedValue(parser, enclosing, ex);
+            }
+            return true;
+        }
+
+        /**
+         * Records a field the response type does not declare, which fails binding the object under the
+         * mapper's {@link DeserializationFeature#FAIL_ON_UNKNOWN_PROPERTIES} setting.
+         */
+        void unrecognised(String field, JsonParser parser, ObjectMapper objectMapper) {
+            if (failure == null && objectMapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)) {
+                failure = UnrecognizedPropertyException.from(parser, InventoryBatchesBySkuMrpResponse.class, field, null);
+            }
+        }
+
+        boolean isComplete() {
+            return hasSku && hasMrp && hasBatches;
+        }
+
+        InventoryBatchesBySkuMrpResponse toResponse() throws DatabindException {
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            InventoryBatchesBySkuMrpResponse response = new InventoryBatchesBySkuMrpResponse();
+            response.setSku(sku);
+            response.setMrp(mrp);
+            response.setBatches(batches);
+            return response;
+        }
+    }
+
+    private static final class FlatRowGrouping {
+
+        private final Map<String, List<InventoryBatchResponse>> grouped = new LinkedHashMap<>();
+        private final Map<String, InventoryFlatBatchRow> firstRowByKey = new HashMap<>();
+
+        void add(InventoryFlatBatchRow row) {
+
+            if (row == null || row.sku == null || row.sku.isBlank() || row.mrp == null) {
+                return;
+            }
+
+            String key = InventoryClient.skuMrpKey(row.sku, row.mrp);
+            firstRowByKey.putIfAbsent(key, row);
+            List<InventoryBatchResponse> batches = grouped.computeIfAbsent(key, ignored -> new ArrayList<>());
+
+            if (row.batchNo != null && row.quantity != null) {
+                InventoryBatchResponse batch = new InventoryBatchResponse();
+                batch.setBatchNo(row.batchNo);
+                batch.setMrp(row.mrp);
+                batch.setQuantity(row.quantity);
+                batch.setExpiryDate(row.expiryDate);
+                batches.add(batch);
+            }
+        }
+
+        void emit(Consumer<InventoryBatchesBySkuMrpResponse> emit) {
+            grouped.forEach((key, batches) -> {
+                InventoryBatchesBySkuMrpResponse row = new InventoryBatchesBySkuMrpResponse();
+                row.setSku(key.substring(0, key.indexOf("||")));
+                row.setMrp(firstRowByKey.get(key).mrp);
+                row.setBatches(batches);
+                emit.accept(row);
+            });
+        }
+    }
+
+    private static class InventoryFlatBatchRow {
+        public String sku;
+        public Double mrp;
+        public String batchNo;
+        public LocalDate expiryDate;
+        public Integer quantity;
+    }
+}
@@ -1,17 +1,33 @@
 package com.addverb.outbound_service.inventory;
 
 import com.addverb.outbound_service.exception.BusinessException;
+import com.addverb.outbound_service.enums.InventoryChunkFailureMode;
+import com.addverb.outbound_service.exception.InventoryRejectedException;
 import com.addverb.outbound_service.exception.InventoryServiceException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.addverb.outbound_service.exception.InventoryUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.client.reactive.ClientHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 
@@ -21,9 +37,30 @@ import java.util.stream.Collectors;
 public class InventoryClient {
 
     private final WebClient webClient;
-    private final ObjectMapper objectMapper;
+    private final InventoryAvailableResponseDecoder availableResponseDecoder;
+    private final CircuitBreaker inventoryCircuitBreaker;
+    private final Bulkhead inventoryBulkhead;
+    private final InventoryHedgingPolicy hedgingPolicy;
 
-    public final String INVENTORY_BASE_URL = "http://172.19.8.200:8080/api/inventory";
+    @Value("${app.inventory.base-url:http://172.19.8.200:8080/api/inventory}")
+    private String inventoryBaseUrl;
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    @Value("${app.inventory.http.available-timeout-ms:10000}")
+    private long availableTimeoutMillis;
+
+    @Value("${app.inventory.http.save-timeout-ms:15000}")
+    private long saveTimeoutMillis;
+
+    @Value("${app.inventory.available.chunk-size:500}")
+    private int availableChunkSize;
+
+    @Value("${app.inventory.available.concurrency:4}")
+    private int availableConcurrency;
+
+    @Value("${app.inventory.available.chunk-failure-mode:FAIL}")
+    private InventoryChunkFailureMode chunkFailureMode;
 
 //    public List<InventoryBatchResponse> getBatchesBySkuAndMrp(String skuCode, Double mrp) {
 //        InventoryBatchResponse[] response = webClient.get()
@@ -65,16 +102,22 @@ public class InventoryClient {
 //    }
 
     public List<InventoryBatchResponse> getBatchesBySkuAndMrp(String skuCode, Double mrp) {
+        return getBatchesBySkuAndMrpReactive(skuCode, mrp).block();
+    }
 
-        Map<String, List<InventoryBatchResponse>> response = getBatchesBySkuAndMrpBulk(List.of(new OrderInventoryQuery(skuCode, mrp)));
+    public Map<String, List<InventoryBatchResponse>> getBatchesBySkuAndMrpBulk(List<OrderInventoryQuery> queries) {
+        return getBatchesBySkuAndMrpBulkReactive(queries).block();
+    }
 
-        return response.getOrDefault(buildKey(skuCode, mrp), Collections.emptyList());
+    public Mono<List<InventoryBatchResponse>> getBatchesBySkuAndMrpReactive(String skuCode, Double mrp) {
+        return getBatchesBySkuAndMrpBulkReactive(List.of(new OrderInventoryQuery(skuCode, mrp)))
+                .map(response -> response.getOrDefault(buildKey(skuCode, mrp), Collections.emptyList()));
     }
 
-    public Map<String, List<InventoryBatchResponse>> getBatchesBySkuAndMrpBulk(List<OrderInventoryQuery> queries) {
+    public Mono<Map<String, List<InventoryBatchResponse>>> getBatchesBySkuAndMrpBulkReactive(List<OrderInventoryQuery> queries) {
 
         if (queries == null || queries.isEmpty()) {
-            return Collections.emptyMap();
+            return Mono.just(Collections.emptyMap());
         }
 
         List<InventorySkuMrpRequest> bulkQueries = queries.stream()
@@ -93,245 +136,216 @@ public class InventoryClient {
                 .toList();
 
         if (bulkQueries.isEmpty()) {
-            return Collections.emptyMap();
+            return Mono.just(Collections.emptyMap());
         }
 
-        try {
-            log.info("InventoryClient.getBatchesBySkuAndMrpBulk payload size={}", bulkQueries.size());
-            String rawResponse = callAvailableEndpoint(bulkQueries);
-            InventoryBatchesBySkuMrpResponse[] response = parseAvailableResponse(rawResponse);
-
-            if (response == null)
-                return Collections.emptyMap();
-
-            return Arrays.stream(response)
-                    .filter(item -> item != null && item.getSku() != null && item.getMrp() != null)
-                    .collect(Collectors.toMap(
-                            item -> buildKey(item.getSku(), item.getMrp()),
-                            item -> item.getBatches() != null ? item.getBatches() : Collections.emptyList(),
-                            (existing, ignored) -> existing
-                    ));
-        } catch (WebClientException ex) {
-            throw new InventoryServiceException("Inventory service request failed: " + ex.getMessage());
-        }
-    }
-
-    private String callAvailableEndpoint(Object payload) {
-        return webClient.post()
-                .uri(INVENTORY_BASE_URL + "/available")
-                .bodyValue(payload)
-                .retrieve()
-                .onStatus(
-                        status -> status.isError(),
-                        error -> error.bodyToMono(String.class)
-                                .flatMap(body -> Mono.error(new InventoryServiceException("Inventory fetch failed: " + body)))
-                )
-                .bodyToMono(String.class)
-                .block();
+        List<List<InventorySkuMrpRequest>> chunks = chunked(bulkQueries);
+
+        return Flux.defer(() -> {
+                    log.info("InventoryClient.getBatchesBySkuAndMrpBulk payload size={} chunks={}", bulkQueries.size(), chunks.size());
+                    AtomicInteger failedChunks = new AtomicInteger();
+                    AtomicReference<InventoryUnavailableException> unavailable = new AtomicReference<>();
+
+                    return Flux.fromIterable(chunks)
+                            .flatMap(chunk -> fetchAvailableChunk(chunk, chunks.size(), failedChunks, unavailable), availableConcurrency)
+                            .concatWith(Mono.defer(() -> {
+                                if (failedChunks.get() < chunks.size()) {
+                                    return Mono.empty();
+                                }
+                                // Every chunk failed: keep the 503 when the breaker or bulkhead turned the calls away
+                                return Mono.error(unavailable.get() != null
+                                        ? unavailable.get()
+                                        : new InventoryServiceException("Inventory fetch failed: every /available chunk failed"));
+                            }));
+                })
+                .filter(item -> item.getSku() != null && item.getMrp() != null)
+                .collect(Collectors.toMap(
+                        item -> buildKey(item.getSku(), item.getMrp()),
+                        item -> item.getBatches() != null ? item.getBatches() : Collections.<InventoryBatchResponse>emptyList(),
+                        (existing, ignored) -> existing
+                ))
+                .onErrorMap(WebClientException.class,
+                        ex -> new InventoryServiceException("Inventory service request failed: " + ex.getMessage()));
     }
 
-
-    private InventoryBatchesBySkuMrpResponse[] parseAvailableResponse(String rawResponse) {
-
-        if (rawResponse == null || rawResponse.isBlank()) {
-            return new InventoryBatchesBySkuMrpResponse[0];
-        }
-
-        try {
-            JsonNode root = objectMapper.readTree(rawResponse);
-
-            if (root.isArray()) {
-                return objectMapper.treeToValue(root, InventoryBatchesBySkuMrpResponse[].class);
-            }
-
-            if (looksLikeSkuMrpResponse(root)) {
-                return new InventoryBatchesBySkuMrpResponse[]{
-                        objectMapper.treeToValue(root, InventoryBatchesBySkuMrpResponse.class)
-                };
-            }
-
-            if (root.has("success") && !root.path("success").asBoolean(true)) {
-                String message = root.path("message").asText("Inventory fetch failed");
-                throw new InventoryServiceException("Inventory fetch failed: " + message);
-            }
-
-            JsonNode dataNode = root.get("data");
-            if (dataNode != null) {
-                if (dataNode.isObject()) {
-                    InventoryBatchesBySkuMrpResponse[] mapBased = parseSkuMrpMapData(dataNode);
-                    if (mapBased.length > 0) {
-                        return mapBased;
-                    }
+    /**
+     * Fetches one chunk of a fan-out. A chunk is merged only once it decoded completely; in DEGRADE mode a failed
+     * chunk contributes no keys, so only its orders see missing inventory while the rest of the wave proceeds.
+     * That includes a chunk rejected by the circuit breaker or bulkhead.
+     */
+    private Flux<InventoryBatchesBySkuMrpResponse> fetchAvailableChunk(
+            List<InventorySkuMrpRequest> chunk,
+            int totalChunks,
+            AtomicInteger failedChunks,
+            AtomicReference<InventoryUnavailableException> unavailable) {
+
+        Mono<List<InventoryBatchesBySkuMrpResponse>> rows = hedged(() -> guarded(callAvailableEndpoint(chunk).collectList()));
+
+        if (chunkFailureMode == InventoryChunkFailureMode.DEGRADE && totalChunks > 1) {
+            rows = rows.onErrorResume(ex -> ex instanceof InventoryServiceException || ex instanceof InventoryUnavailableException, ex -> {
+                if (ex instanceof InventoryUnavailableException unavailableEx) {
+                    unavailable.set(unavailableEx);
                 }
-
-                if (dataNode.isArray()) {
-                    if (dataNode.size() > 0 && dataNode.get(0).isObject() && dataNode.get(0).has("sku") && dataNode.get(0).has("batchNo")) {
-                        return mapFlatBatchRows(dataNode);
-                    }
-                    return objectMapper.treeToValue(dataNode, InventoryBatchesBySkuMrpResponse[].class);
-                }
-                if (looksLikeSkuMrpResponse(dataNode)) {
-                    return new InventoryBatchesBySkuMrpResponse[]{
-                            objectMapper.treeToValue(dataNode, InventoryBatchesBySkuMrpResponse.class)
-                    };
-                }
-
-            }
-
-            throw new InventoryServiceException("Inventory fetch failed: Unexpected /available response shape -> " + rawResponse);
-        } catch (InventoryServiceException ex) {
-            throw ex;
-        } catch (Exception ex) {
-            throw new InventoryServiceException("Inventory response parsing failed: " + ex.getMessage());
+                failedChunks.incrementAndGet();
+                log.warn("Skipping /available chunk of {} keys: {}", chunk.size(), ex.getMessage());
+                return Mono.just(Collections.emptyList());
+            });
         }
-    }
-
-    private InventoryBatchesBySkuMrpResponse[] parseSkuMrpMapData(JsonNode dataNode) {
-        List<InventoryBatchesBySkuMrpResponse> mapped = new ArrayList<>();
-
-        dataNode.fields().forEachRemaining(entry -> {
-            String key = entry.getKey();
-            JsonNode value = entry.getValue();
-
-            if (!value.isArray()) {
-                return;
-            }
-
-            String[] parts = key.split("\\|\\|", 2);
-            if (parts.length != 2) {
-                return;
-            }
-
-            Double mrp;
-            try {
-                mrp = Double.parseDouble(parts[1]);
-            } catch (NumberFormatException ex) {
-                return;
-            }
-
-            List<InventoryBatchResponse> batches = new ArrayList<>();
-            value.forEach(item -> {
-                if (!item.isObject()) {
-                    return;
-                }
-
-                InventoryBatchResponse batch = new InventoryBatchResponse();
-                batch.setBatchNo(item.path("batchNo").isMissingNode() ? null : item.path("batchNo").asText(null));
 
-                if (!item.path("mrp").isMissingNode() && !item.path("mrp").isNull()) {
-                    batch.setMrp(item.path("mrp").asDouble());
-                }
+        return rows.flatMapIterable(chunkRows -> chunkRows);
+    }
 
-                if (!item.path("quantity").isMissingNode() && !item.path("quantity").isNull()) {
-                    batch.setQuantity(item.path("quantity").asInt());
-                }
+    /**
+     * Sends a duplicate of a slow read once the hedge delay elapses and keeps whichever attempt signals first; the
+     * other is cancelled. Only used for {@code /available}: {@code /save} mutates stock and is never hedged.
+     * A failure of the first attempt is not hedged, and a failing hedge never signals, so only a value can win
+     * for it and the first attempt keeps running.
+     * <p>
+     * The first attempt's latency is recorded even when a hedge overtakes it, so slow calls stay in the
+     * percentile the hedge delay is derived from.
+     */
+    <T> Mono<T> hedged(Supplier<Mono<T>> attempt) {
+
+        if (!hedgingPolicy.isEnabled()) {
+            return timed(Mono.defer(attempt), false);
+        }
 
-                if (!item.path("expiryDate").isMissingNode() && !item.path("expiryDate").isNull()) {
-                    try {
-                        batch.setExpiryDate(java.time.LocalDate.parse(item.path("expiryDate").asText()));
-                    } catch (Exception ignored) {
-                    }
-                }
+        return Mono.defer(() -> {
+            Duration delay = hedgingPolicy.hedgeDelay();
 
-                if (batch.getBatchNo() != null) {
-                    batches.add(batch);
-                }
-            });
+            Mono<T> hedge = Mono.delay(delay)
+                    .doOnNext(tick -> log.debug("Hedging /available call after {} ms", delay.toMillis()))
+                    .then(timed(Mono.defer(attempt), false))
+                    .onErrorResume(ex -> {
+                        log.debug("Hedged /available call failed: {}", ex.getMessage());
+                        return Mono.never();
+                    });
 
-            InventoryBatchesBySkuMrpResponse row = new InventoryBatchesBySkuMrpResponse();
-            row.setSku(parts[0]);
-            row.setMrp(mrp);
-            row.setBatches(batches);
-            mapped.add(row);
+            return Mono.firstWithSignal(timed(Mono.defer(attempt), true), hedge);
         });
+    }
 
-        return mapped.toArray(new InventoryBatchesBySkuMrpResponse[0]);
+    private <T> Mono<T> timed(Mono<T> call, boolean includeCancelled) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            Mono<T> timedCall = call.doOnSuccess(ignored -> hedgingPolicy.recordLatency(System.nanoTime() - startedAt));
+            return includeCancelled
+                    ? timedCall.doOnCancel(() -> hedgingPolicy.recordLatency(System.nanoTime() - startedAt))
+                    : timedCall;
+        });
     }
 
-    private InventoryBatchesBySkuMrpResponse[] mapFlatBatchRows(JsonNode rowsNode) {
-        List<InventoryFlatBatchRow> rows = Arrays.asList(objectMapper.convertValue(rowsNode, InventoryFlatBatchRow[].class));
-
-        Map<String, List<InventoryBatchResponse>> grouped = new java.util.LinkedHashMap<>();
-        Map<String, Double> mrpByKey = new java.util.LinkedHashMap<>();
-
-        for (InventoryFlatBatchRow row : rows) {
-            if (row == null || row.sku == null || row.sku.isBlank() || row.mrp == null) {
-                continue;
-            }
-
-            String key = buildKey(row.sku, row.mrp);
-            mrpByKey.putIfAbsent(key, row.mrp);
-            grouped.computeIfAbsent(key, ignored -> new ArrayList<>());
-
-            if (row.batchNo != null && row.quantity != null) {
-                InventoryBatchResponse batch = new InventoryBatchResponse();
-                batch.setBatchNo(row.batchNo);
-                batch.setMrp(row.mrp);
-                batch.setQuantity(row.quantity);
-                batch.setExpiryDate(row.expiryDate);
-                grouped.get(key).add(batch);
-            }
-        }
+    private List<List<InventorySkuMrpRequest>> chunked(List<InventorySkuMrpRequest> bulkQueries) {
 
-        List<InventoryBatchesBySkuMrpResponse> mapped = new ArrayList<>();
-        grouped.forEach((key, batches) -> {
-            String[] parts = key.split("\\|\\|", 2);
-            if (parts.length != 2) {
-                return;
-            }
-
-            InventoryBatchesBySkuMrpResponse row = new InventoryBatchesBySkuMrpResponse();
-            row.setSku(parts[0]);
-            row.setMrp(mrpByKey.get(key));
-            row.setBatches(batches);
-            mapped.add(row);
-        });
+        if (availableChunkSize <= 0 || bulkQueries.size() <= availableChunkSize) {
+            return List.of(bulkQueries);
+        }
 
-        return mapped.toArray(new InventoryBatchesBySkuMrpResponse[0]);
+        List<List<InventorySkuMrpRequest>> chunks = new ArrayList<>();
+        for (int from = 0; from < bulkQueries.size(); from += availableChunkSize) {
+            chunks.add(bulkQueries.subList(from, Math.min(from + availableChunkSize, bulkQueries.size())));
+        }
+        return chunks;
     }
 
-    private static class InventoryFlatBatchRow {
-        public String sku;
-        public Double mrp;
-        public String batchNo;
-        public java.time.LocalDate expiryDate;
-        public Integer quantity;
+    /**
+     * Streams the {@code /available} rows as they are decoded, without buffering the body.
+     */
+    private Flux<InventoryBatchesBySkuMrpResponse> callAvailableEndpoint(Object payload) {
+        return availableResponseDecoder.decode(webClient.post()
+                .uri(inventoryBaseUrl + "/available")
+                .httpRequest(request -> applyResponseTimeout(request, availableTimeoutMillis))
+                .bodyValue(payload)
+                .retrieve()
+                .onStatus(
+                        status -> status.is4xxClientError(),
+                        error -> error.bodyToMono(String.class)
+                                .flatMap(body -> Mono.error(new InventoryServiceException("Inventory fetch failed: " + body)))
+                )
+                .bodyToFlux(DataBuffer.class));
     }
 
-    private boolean looksLikeSkuMrpResponse(JsonNode node) {
-        return node != null && node.isObject() && node.has("sku") && node.has("mrp") && node.has("batches");
+
+    InventoryBatchesBySkuMrpResponse[] parseAvailableResponse(String rawResponse) {
+        return availableResponseDecoder.decode(rawResponse).toArray(new InventoryBatchesBySkuMrpResponse[0]);
     }
 
 
     public void deductInventoryBulk(
             List<InventoryDeductRequest> items
     ) {
+        deductInventoryBulkReactive(items).block();
+    }
+
+    public void deductInventoryBulk(List<InventoryDeductRequest> items, String idempotencyKey) {
+        deductInventoryBulkReactive(items, idempotencyKey).block();
+    }
+
+    public Mono<Void> deductInventoryBulkReactive(List<InventoryDeductRequest> items) {
+        return deductInventoryBulkReactive(items, null);
+    }
+
+    /**
+     * @param idempotencyKey sent as the {@code Idempotency-Key} header when present; a resend under the same key
+     *                       must carry the same items
+     */
+    public Mono<Void> deductInventoryBulkReactive(List<InventoryDeductRequest> items, String idempotencyKey) {
 
         InventoryBulkOrdersDeductRequest request = InventoryBulkOrdersDeductRequest.builder()
                 .items(items)
                 .operation("DEDUCT")
                 .build();
 
-        try {
-            webClient.post()
-                    .uri(INVENTORY_BASE_URL + "/save")
-                    .bodyValue(request)
-                    .retrieve()
-                    .onStatus(
-                            status -> status.isError(),
-                            response -> response.bodyToMono(String.class)
-                                    .map(error -> new InventoryServiceException("Inventory bulk deduction failed: " + error))
-                    )
-                    .toBodilessEntity()
-                    .block();
-        } catch (WebClientException ex) {
-            throw new InventoryServiceException("Inventory service request failed: " + ex.getMessage());
+        return webClient.post()
+                .uri(inventoryBaseUrl + "/save")
+                .httpRequest(httpRequest -> applyResponseTimeout(httpRequest, saveTimeoutMillis))
+                .headers(headers -> {
+                    if (idempotencyKey != null) {
+                        headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+                    }
+                })
+                .bodyValue(request)
+                .retrieve()
+                .onStatus(
+                        status -> status.is4xxClientError(),
+                        response -> response.bodyToMono(String.class)
+                                .map(error -> new InventoryRejectedException("Inventory bulk deduction failed: " + error))
+                )
+                .toBodilessEntity()
+                .then()
+                .transform(this::guarded);
+    }
+
+    /**
+     * Runs an inventory call inside the bulkhead and circuit breaker. Rejections surface as
+     * {@link InventoryUnavailableException} without touching the network; call failures as
+     * {@link InventoryServiceException}.
+     */
+    private <T> Mono<T> guarded(Mono<T> call) {
+        return call
+                .transformDeferred(BulkheadOperator.of(inventoryBulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(inventoryCircuitBreaker))
+                .onErrorMap(CallNotPermittedException.class, ex -> new InventoryUnavailableException(
+                        "Inventory service is unavailable, circuit breaker is open", "INVENTORY_CIRCUIT_OPEN"))
+                .onErrorMap(BulkheadFullException.class, ex -> new InventoryUnavailableException(
+                        "Inventory service is saturated, too many concurrent calls", "INVENTORY_BULKHEAD_FULL"))
+                .onErrorMap(WebClientException.class,
+                        ex -> new InventoryServiceException("Inventory service request failed: " + ex.getMessage()));
+    }
+
+    private static void applyResponseTimeout(ClientHttpRequest request, long timeoutMillis) {
+        if (timeoutMillis > 0 && request.getNativeRequest() instanceof HttpClientRequest nativeRequest) {
+            nativeRequest.responseTimeout(Duration.ofMillis(timeoutMillis));
         }
     }
 
     public record OrderInventoryQuery(String skuCode, Double mrp) {}
 
     private String buildKey(String skuCode, Double mrp) {
+        return skuMrpKey(skuCode, mrp);
+    }
+
+    public static String skuMrpKey(String skuCode, Double mrp) {
         return skuCode == null ? "||" + mrp : skuCode.trim().toLowerCase() + "||" + mrp;
     }
 
@@ -0,0 +1,69 @@
+package com.addverb.outbound_service.inventory;
+
+import java.util.*;
+
+/**
+ * Merges deduction items that draw from the same batch into one {@code /save} item.
+ * <p>
+ * Items are keyed by SKU||MRP plus batch number and keep the order in which each batch was first seen.
+ */
+public final class InventoryDeductionCompactor {
+
+    private InventoryDeductionCompactor() {
+    }
+
+    public static CompactedDeduction compact(List<InventoryOrderDeductPlan> plans) {
+
+        Map<String, Integer> indexByBatch = new HashMap<>();
+        List<InventoryDeductRequest> items = new ArrayList<>();
+        int originalItemCount = 0;
+
+        for (InventoryOrderDeductPlan plan : plans) {
+            for (InventoryDeductRequest item : plan.getAllocations()) {
+                originalItemCount++;
+                int quantity = item.getQuantity() == null ? 0 : item.getQuantity();
+
+                Integer index = indexByBatch.putIfAbsent(batchKey(item), items.size());
+                if (index == null) {
+                    items.add(InventoryDeductRequest.builder()
+                            .sku(item.getSku())
+                            .mrp(item.getMrp())
+                            .batchNo(item.getBatchNo())
+                            .quantity(quantity)
+                            .status(item.getStatus())
+                            .expiryDate(item.getExpiryDate())
+                            .build());
+                } else {
+                    InventoryDeductRequest merged = items.get(index);
+                    merged.setQuantity(merged.getQuantity() + quantity);
+                }
+            }
+        }
+
+        return new CompactedDeduction(items, originalItemCount);
+    }
+
+    public static CompactedDeduction compact(Collection<InventoryDeductRequest> items) {
+        return compact(List.of(InventoryOrderDeductPlan.builder()
+                .allocations(new ArrayList<>(items))
+                .build()));
+    }
+
+    private static String batchKey(InventoryDeductRequest item) {
+        return InventoryClient.skuMrpKey(item.getSku(), item.getMrp()) + "||" + item.getBatchNo();
+    }
+
+    /**
+     * @param items             merged items, one per batch
+     * @param originalItemCount number of items before merging
+     */
+    public record CompactedDeduction(
+            List<InventoryDeductRequest> items,
+            int originalItemCount
+    ) {
+
+        public int compactedItemCount() {
+            return items.size();
+        }
+    }
+}
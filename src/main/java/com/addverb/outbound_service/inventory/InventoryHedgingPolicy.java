@@ -0,0 +1,72 @@
+package com.addverb.outbound_service.inventory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decides when a read-only {@code /available} call gets a hedged duplicate.
+ * <p>
+ * Successful call latencies are kept in a fixed-size ring buffer; the hedge delay is the configured percentile of
+ * that window, clamped to {@code min-delay-ms}. Until {@code min-samples} calls were observed the fixed
+ * {@code initial-delay-ms} is used instead.
+ */
+@Component
+public class InventoryHedgingPolicy {
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long initialDelayNanos;
+    private final int minSamples;
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+
+    public InventoryHedgingPolicy(
+            @Value("${app.inventory.hedging.enabled:false}") boolean enabled,
+            @Value("${app.inventory.hedging.percentile:95}") double percentile,
+            @Value("${app.inventory.hedging.min-delay-ms:20}") long minDelayMillis,
+            @Value("${app.inventory.hedging.initial-delay-ms:200}") long initialDelayMillis,
+            @Value("${app.inventory.hedging.min-samples:20}") int minSamples,
+            @Value("${app.inventory.hedging.window-size:256}") int windowSize) {
+        this.enabled = enabled;
+        this.percentile = Math.min(100.0, Math.max(0.0, percentile));
+        this.minDelayNanos = Duration.ofMillis(minDelayMillis).toNanos();
+        this.initialDelayNanos = Duration.ofMillis(initialDelayMillis).toNanos();
+        this.minSamples = Math.max(1, minSamples);
+        this.samples = new AtomicLongArray(Math.max(1, windowSize));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordLatency(long elapsedNanos) {
+        long slot = recorded.getAndIncrement();
+        samples.set((int) (slot % samples.length()), elapsedNanos);
+    }
+
+    public Duration hedgeDelay() {
+
+        int count = (int) Math.min(recorded.get(), samples.length());
+
+        if (count < minSamples) {
+            return Duration.ofNanos(Math.max(initialDelayNanos, minDelayNanos));
+        }
+
+        long[] window = new long[count];
+        for (int i = 0; i < count; i++) {
+            window[i] = samples.get(i);
+        }
+        Arrays.sort(window);
+
+        int rank = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        long delay = window[Math.max(0, Math.min(rank, count - 1))];
+
+        return Duration.ofNanos(Math.max(delay, minDelayNanos));
+    }
+}
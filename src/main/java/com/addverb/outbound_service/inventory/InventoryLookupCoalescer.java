@@ -0,0 +1,169 @@
+package com.addverb.outbound_service.inventory;
+
+import com.addverb.outbound_service.exception.InventoryServiceException;
+import com.addverb.outbound_service.exception.InventoryUnavailableException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Micro-batches concurrent single SKU||MRP lookups into one bulk {@code /available} call.
+ * <p>
+ * The first lookup of a window schedules a flush after {@code window-ms}; lookups arriving in the meantime
+ * join the same batch (identical keys share one pending result). A batch is also flushed early once it
+ * reaches {@code max-batch-size} keys. Each caller blocks only on its own key's result.
+ * <p>
+ * Every single-key lookup goes through here: the allocation paths directly, and {@link InventorySnapshotCache}
+ * for its misses, so concurrent callers of one key share a single {@code /available} call whether or not the
+ * cache is in use.
+ */
+@Component
+@Slf4j
+public class InventoryLookupCoalescer {
+
+    private final InventoryClient inventoryClient;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService dispatchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Object lock = new Object();
+    private Map<String, PendingLookup> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public InventoryLookupCoalescer(
+            InventoryClient inventoryClient,
+            @Value("${app.inventory.coalescing.enabled:true}") boolean enabled,
+            @Value("${app.inventory.coalescing.window-ms:5}") long windowMillis,
+            @Value("${app.inventory.coalescing.max-batch-size:200}") int maxBatchSize) {
+        this.inventoryClient = inventoryClient;
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flushScheduler.shutdownNow();
+        dispatchExecutor.shutdown();
+    }
+
+    public List<InventoryBatchResponse> getBatchesBySkuAndMrp(String skuCode, Double mrp) {
+
+        if (!enabled) {
+            return inventoryClient.getBatchesBySkuAndMrp(skuCode, mrp);
+        }
+
+        try {
+            return enqueue(skuCode, mrp).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InventoryServiceException("Inventory lookup was interrupted");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof InventoryServiceException || ex.getCause() instanceof InventoryUnavailableException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new InventoryServiceException("Inventory service request failed: " + ex.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Non-blocking variant for the reactive allocation path. A cancelled caller leaves the shared lookup running
+     * for the others waiting on the same key.
+     */
+    public Mono<List<InventoryBatchResponse>> getBatchesBySkuAndMrpReactive(String skuCode, Double mrp) {
+
+        if (!enabled) {
+            return inventoryClient.getBatchesBySkuAndMrpReactive(skuCode, mrp);
+        }
+
+        return Mono.fromFuture(() -> enqueue(skuCode, mrp), true)
+                .onErrorMap(ex -> !(ex instanceof InventoryServiceException || ex instanceof InventoryUnavailableException),
+                        ex -> new InventoryServiceException("Inventory service request failed: " + ex.getMessage()));
+    }
+
+    private CompletableFuture<List<InventoryBatchResponse>> enqueue(String skuCode, Double mrp) {
+
+        String key = InventoryClient.skuMrpKey(skuCode, mrp);
+        Map<String, PendingLookup> readyBatch = null;
+        CompletableFuture<List<InventoryBatchResponse>> result;
+
+        synchronized (lock) {
+            result = pending.computeIfAbsent(key, ignored -> new PendingLookup(
+                    new InventoryClient.OrderInventoryQuery(skuCode, mrp),
+                    new CompletableFuture<>()
+            )).result();
+
+            if (pending.size() >= maxBatchSize) {
+                readyBatch = takePending();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = flushScheduler.schedule(this::flushScheduled, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (readyBatch != null) {
+            dispatch(readyBatch);
+        }
+
+        return result;
+    }
+
+    private void flushScheduled() {
+        Map<String, PendingLookup> batch;
+        synchronized (lock) {
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    private Map<String, PendingLookup> takePending() {
+        Map<String, PendingLookup> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<String, PendingLookup> batch) {
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        dispatchExecutor.execute(() -> {
+            List<InventoryClient.OrderInventoryQuery> queries = new ArrayList<>(batch.size());
+            batch.values().forEach(lookup -> queries.add(lookup.query()));
+
+            try {
+                log.debug("InventoryLookupCoalescer flushing {} coalesced lookups", queries.size());
+                Map<String, List<InventoryBatchResponse>> response = inventoryClient.getBatchesBySkuAndMrpBulk(queries);
+                batch.forEach((key, lookup) -> lookup.result().complete(response.getOrDefault(key, Collections.emptyList())));
+            } catch (Exception ex) {
+                batch.values().forEach(lookup -> lookup.result().completeExceptionally(ex));
+            }
+        });
+    }
+
+    private record PendingLookup(
+            InventoryClient.OrderInventoryQuery query,
+            CompletableFuture<List<InventoryBatchResponse>> result
+    ) {
+    }
+}
@@ -8,7 +8,7 @@ import java.util.List;
 @Data
 @Builder
 public class InventoryOrderDeductPlan {
-//    private String orderNumber;
+    private String orderNumber;
     private String skuCode;
     private Double mrp;
 //    private Integer requestedQty;
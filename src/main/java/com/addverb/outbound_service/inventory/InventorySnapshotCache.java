@@ -0,0 +1,217 @@
+package com.addverb.outbound_service.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Short-lived cache of {@code /available} batch lists keyed by SKU||MRP.
+ * <p>
+ * Entries are fresh for {@code ttl-ms}; the cache holds at most {@code max-entries} keys and evicts the least
+ * recently used one beyond that. Every entry carries a ledger of the deductions this service confirmed through
+ * {@code /save} after the snapshot was fetched, and reads subtract that ledger, so the cached view never shows
+ * more stock than the inventory service had at fetch time minus our own consumption since.
+ * Other consumers of the inventory are not visible here; callers fall back to a live fetch when a plan built
+ * from cached data is rejected downstream.
+ */
+@Component
+@Slf4j
+public class InventorySnapshotCache {
+
+    private final InventoryClient inventoryClient;
+    private final InventoryLookupCoalescer inventoryLookupCoalescer;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Map<String, Snapshot> snapshots;
+
+    public InventorySnapshotCache(
+            InventoryClient inventoryClient,
+            InventoryLookupCoalescer inventoryLookupCoalescer,
+            @Value("${app.inventory.cache.enabled:true}") boolean enabled,
+            @Value("${app.inventory.cache.ttl-ms:2000}") long ttlMillis,
+            @Value("${app.inventory.cache.max-entries:10000}") int maxEntries) {
+        this.inventoryClient = inventoryClient;
+        this.inventoryLookupCoalescer = inventoryLookupCoalescer;
+        this.enabled = enabled;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.snapshots = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Bulk lookup that serves fresh keys from the cache and fetches only the missing ones in one bulk call.
+     */
+    public Map<String, List<InventoryBatchResponse>> getBatchesBySkuAndMrpBulk(List<InventoryClient.OrderInventoryQuery> queries) {
+
+        if (!enabled) {
+            return inventoryClient.getBatchesBySkuAndMrpBulk(queries);
+        }
+
+        Map<String, List<InventoryBatchResponse>> result = new HashMap<>();
+        List<InventoryClient.OrderInventoryQuery> misses = new ArrayList<>();
+        long now = System.nanoTime();
+
+        synchronized (snapshots) {
+            for (InventoryClient.OrderInventoryQuery query : queries) {
+                String key = InventoryClient.skuMrpKey(query.skuCode(), query.mrp());
+                if (result.containsKey(key)) {
+                    continue;
+                }
+
+                Snapshot snapshot = snapshots.get(key);
+                if (snapshot != null && now - snapshot.fetchedAt < ttlNanos) {
+                    result.put(key, snapshot.view());
+                } else {
+                    misses.add(query);
+                }
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            long fetchStartedAt = System.nanoTime();
+            Map<String, List<InventoryBatchResponse>> fetched = inventoryClient.getBatchesBySkuAndMrpBulk(misses);
+
+            for (InventoryClient.OrderInventoryQuery query : misses) {
+                String key = InventoryClient.skuMrpKey(query.skuCode(), query.mrp());
+                List<InventoryBatchResponse> batches = fetched.get(key);
+                // A key missing from the response may belong to a degraded /available chunk, so it is not cached
+                result.put(key, batches == null ? Collections.emptyList() : store(key, batches, fetchStartedAt));
+            }
+        }
+
+        log.debug("InventorySnapshotCache served {} keys, fetched {}", result.size() - misses.size(), misses.size());
+        return result;
+    }
+
+    public List<InventoryBatchResponse> getBatchesBySkuAndMrp(String skuCode, Double mrp) {
+
+        if (!enabled) {
+            return inventoryLookupCoalescer.getBatchesBySkuAndMrp(skuCode, mrp);
+        }
+
+        String key = InventoryClient.skuMrpKey(skuCode, mrp);
+        synchronized (snapshots) {
+            Snapshot snapshot = snapshots.get(key);
+            if (snapshot != null && System.nanoTime() - snapshot.fetchedAt < ttlNanos) {
+                return snapshot.view();
+            }
+        }
+
+        long fetchStartedAt = System.nanoTime();
+        return store(key, inventoryLookupCoalescer.getBatchesBySkuAndMrp(skuCode, mrp), fetchStartedAt);
+    }
+
+    /**
+     * Last fetched view of each key regardless of its age, for read-only callers while the inventory service is
+     * unavailable. Keys never fetched, or already evicted, are absent.
+     */
+    public Map<String, List<InventoryBatchResponse>> getLastKnownBatches(List<InventoryClient.OrderInventoryQuery> queries) {
+
+        Map<String, List<InventoryBatchResponse>> result = new HashMap<>();
+
+        synchronized (snapshots) {
+            for (InventoryClient.OrderInventoryQuery query : queries) {
+                String key = InventoryClient.skuMrpKey(query.skuCode(), query.mrp());
+                Snapshot snapshot = snapshots.get(key);
+                if (snapshot != null) {
+                    result.putIfAbsent(key, snapshot.view());
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Records deductions confirmed by {@code /save} against the cached snapshots of their keys.
+     */
+    public void recordDeductions(List<InventoryDeductRequest> items) {
+
+        if (!enabled || items == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        synchronized (snapshots) {
+            for (InventoryDeductRequest item : items) {
+                Snapshot snapshot = snapshots.get(InventoryClient.skuMrpKey(item.getSku(), item.getMrp()));
+                if (snapshot != null && item.getQuantity() != null) {
+                    snapshot.ledger.add(new LedgerEntry(item.getBatchNo(), item.getQuantity(), now));
+                }
+            }
+        }
+    }
+
+    public void invalidate(List<InventoryClient.OrderInventoryQuery> queries) {
+        synchronized (snapshots) {
+            for (InventoryClient.OrderInventoryQuery query : queries) {
+                snapshots.remove(InventoryClient.skuMrpKey(query.skuCode(), query.mrp()));
+            }
+        }
+    }
+
+    private List<InventoryBatchResponse> store(String key, List<InventoryBatchResponse> batches, long fetchStartedAt) {
+
+        Snapshot fresh = new Snapshot(new ArrayList<>(batches), fetchStartedAt);
+
+        synchronized (snapshots) {
+            Snapshot previous = snapshots.get(key);
+            if (previous != null) {
+                // Deductions confirmed after this fetch started may not be reflected in its response yet
+                previous.ledger.stream()
+                        .filter(entry -> entry.recordedAt() >= fetchStartedAt)
+                        .forEach(fresh.ledger::add);
+            }
+            snapshots.put(key, fresh);
+            return fresh.view();
+        }
+    }
+
+    private record LedgerEntry(String batchNo, int quantity, long recordedAt) {
+    }
+
+    private static final class Snapshot {
+
+        private final List<InventoryBatchResponse> batches;
+        private final long fetchedAt;
+        private final List<LedgerEntry> ledger = new ArrayList<>();
+
+        private Snapshot(List<InventoryBatchResponse> batches, long fetchedAt) {
+            this.batches = batches;
+            this.fetchedAt = fetchedAt;
+        }
+
+        private List<InventoryBatchResponse> view() {
+
+            Map<String, Integer> deductedByBatch = new HashMap<>();
+            for (LedgerEntry entry : ledger) {
+                deductedByBatch.merge(entry.batchNo(), entry.quantity(), Integer::sum);
+            }
+
+            List<InventoryBatchResponse> view = new ArrayList<>(batches.size());
+            for (InventoryBatchResponse batch : batches) {
+                InventoryBatchResponse copy = new InventoryBatchResponse();
+                copy.setBatchNo(batch.getBatchNo());
+                copy.setExpiryDate(batch.getExpiryDate());
+                copy.setMrp(batch.getMrp());
+                copy.setSku(batch.getSku());
+                copy.setStatus(batch.getStatus());
+
+                int quantity = batch.getQuantity() == null ? 0 : batch.getQuantity();
+                copy.setQuantity(Math.max(0, quantity - deductedByBatch.getOrDefault(batch.getBatchNo(), 0)));
+                view.add(copy);
+            }
+            return view;
+        }
+    }
+}
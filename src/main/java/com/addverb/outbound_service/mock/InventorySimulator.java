@@ -0,0 +1,322 @@
+package com.addverb.outbound_service.mock;
+
+import com.addverb.outbound_service.inventory.InventoryClient;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for the inventory service, active under the {@code inventory-sim} profile.
+ * <p>
+ * Every SKU||MRP is seeded on first use with a deterministic set of batches, so repeated runs see the same stock.
+ * Batch quantities are atomics and a {@code /save} either applies all of its items or none of them. Latency,
+ * jitter and a random error rate are injected per call to mimic a remote service under load. Idempotency keys of
+ * applied saves are remembered for {@code idempotency-key-ttl-ms}, up to {@code idempotency-key-max-entries} keys.
+ */
+@Component
+@Profile("inventory-sim")
+@Slf4j
+public class InventorySimulator {
+
+    public enum ResponseShape {
+        ARRAY, SINGLE_OBJECT, ENVELOPE_ARRAY, DATA_MAP, FLAT_ROWS, ROTATE
+    }
+
+    private static final ResponseShape[] ROTATED_SHAPES = {
+            ResponseShape.ARRAY, ResponseShape.SINGLE_OBJECT, ResponseShape.ENVELOPE_ARRAY, ResponseShape.DATA_MAP, ResponseShape.FLAT_ROWS
+    };
+
+    private final ConcurrentMap<String, List<SimulatedBatch>> stock = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Void>> savesInFlight = new ConcurrentHashMap<>();
+    private final AtomicLong rotation = new AtomicLong();
+
+    // Applied idempotency keys in the order they were applied, guarded by itself
+    private final Map<String, Long> appliedKeys;
+
+    @Value("${app.inventory.sim.batches-per-sku:4}")
+    private int batchesPerSku;
+
+    @Value("${app.inventory.sim.quantity-per-batch:1000}")
+    private int quantityPerBatch;
+
+    @Value("${app.inventory.sim.latency-ms:5}")
+    private long latencyMillis;
+
+    @Value("${app.inventory.sim.jitter-ms:5}")
+    private long jitterMillis;
+
+    @Value("${app.inventory.sim.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${app.inventory.sim.response-shape:ROTATE}")
+    private ResponseShape responseShape;
+
+    @Value("${app.inventory.sim.idempotency-key-ttl-ms:600000}")
+    private long idempotencyKeyTtlMillis;
+
+    public InventorySimulator(@Value("${app.inventory.sim.idempotency-key-max-entries:100000}") int maxIdempotencyKeys) {
+        this.appliedKeys = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxIdempotencyKeys;
+            }
+        };
+    }
+
+    public Duration nextLatency() {
+        long jitter = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0;
+        return Duration.ofMillis(latencyMillis + jitter);
+    }
+
+    public boolean shouldFail() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    public Object available(List<SkuMrpQuery> queries) {
+
+        ResponseShape shape = responseShape == ResponseShape.ROTATE
+                ? ROTATED_SHAPES[(int) (rotation.getAndIncrement() % ROTATED_SHAPES.length)]
+                : responseShape;
+
+        if (shape == ResponseShape.SINGLE_OBJECT && queries.size() != 1) {
+            shape = ResponseShape.ARRAY;
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Map<String, Object> dataMap = new LinkedHashMap<>();
+        List<Map<String, Object>> flatRows = new ArrayList<>();
+
+        for (SkuMrpQuery query : queries) {
+            if (query == null || query.sku() == null || query.mrp() == null) {
+                continue;
+            }
+
+            List<Map<String, Object>> batches = new ArrayList<>();
+            for (SimulatedBatch batch : batchesFor(query.sku(), query.mrp())) {
+                int quantity = batch.quantity().get();
+                if (quantity <= 0) {
+                    continue;
+                }
+
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("batchNo", batch.batchNo());
+                row.put("expiryDate", batch.expiryDate().toString());
+                row.put("mrp", query.mrp());
+                row.put("quantity", quantity);
+                batches.add(row);
+
+                Map<String, Object> flatRow = new LinkedHashMap<>(row);
+                flatRow.put("sku", query.sku());
+                flatRows.add(flatRow);
+            }
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("sku", query.sku());
+            entry.put("mrp", query.mrp());
+            entry.put("batches", batches);
+            rows.add(entry);
+
+            dataMap.put(query.sku() + "||" + query.mrp(), batches);
+        }
+
+        return switch (shape) {
+            case SINGLE_OBJECT -> rows.isEmpty() ? rows : rows.get(0);
+            case ENVELOPE_ARRAY -> envelope(rows);
+            case DATA_MAP -> envelope(dataMap);
+            case FLAT_ROWS -> envelope(flatRows);
+            default -> rows;
+        };
+    }
+
+    /**
+     * Applies all items or none. A repeated idempotency key whose save was applied is acknowledged without
+     * deducting again; a request arriving while another with its key is still being applied waits for that outcome,
+     * so it only counts as a duplicate if the first one was applied.
+     */
+    public SaveOutcome save(String idempotencyKey, List<SaveItem> items) {
+
+        if (idempotencyKey == null) {
+            return apply(items);
+        }
+
+        while (true) {
+            if (isApplied(idempotencyKey)) {
+                return SaveOutcome.duplicate();
+            }
+
+            CompletableFuture<Void> claim = new CompletableFuture<>();
+            CompletableFuture<Void> running = savesInFlight.putIfAbsent(idempotencyKey, claim);
+            if (running != null) {
+                // Applying is a few in-memory compare-and-sets, so the wait is short
+                running.join();
+                continue;
+            }
+
+            try {
+                if (isApplied(idempotencyKey)) {
+                    return SaveOutcome.duplicate();
+                }
+
+                SaveOutcome outcome = apply(items);
+                if (outcome.accepted()) {
+                    markApplied(idempotencyKey);
+                }
+                return outcome;
+            } finally {
+                savesInFlight.remove(idempotencyKey, claim);
+                claim.complete(null);
+            }
+        }
+    }
+
+    public void reset() {
+        stock.clear();
+        synchronized (appliedKeys) {
+            appliedKeys.clear();
+        }
+        log.info("Inventory simulator stock reset");
+    }
+
+    private SaveOutcome apply(List<SaveItem> items) {
+
+        List<Map.Entry<SimulatedBatch, Integer>> applied = new ArrayList<>();
+
+        for (SaveItem item : items == null ? List.<SaveItem>of() : items) {
+            String rejection = deduct(item, applied);
+            if (rejection != null) {
+                applied.forEach(entry -> entry.getKey().quantity().addAndGet(entry.getValue()));
+                return SaveOutcome.rejected(rejection);
+            }
+        }
+
+        return SaveOutcome.applied(applied.size());
+    }
+
+    private boolean isApplied(String idempotencyKey) {
+        synchronized (appliedKeys) {
+            Long appliedAt = appliedKeys.get(idempotencyKey);
+            if (appliedAt == null) {
+                return false;
+            }
+            if (System.nanoTime() - appliedAt >= idempotencyKeyTtlMillis * 1_000_000L) {
+                appliedKeys.remove(idempotencyKey);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void markApplied(String idempotencyKey) {
+
+        long now = System.nanoTime();
+        long ttlNanos = idempotencyKeyTtlMillis * 1_000_000L;
+
+        synchronized (appliedKeys) {
+            // Keys are in application order, so the expired ones are at the head
+            Iterator<Long> appliedAt = appliedKeys.values().iterator();
+            while (appliedAt.hasNext() && now - appliedAt.next() >= ttlNanos) {
+                appliedAt.remove();
+            }
+            appliedKeys.put(idempotencyKey, now);
+        }
+    }
+
+    private String deduct(SaveItem item, List<Map.Entry<SimulatedBatch, Integer>> applied) {
+
+        if (item == null || item.sku() == null || item.mrp() == null || item.batchNo() == null
+                || item.quantity() == null || item.quantity() <= 0) {
+            return "Invalid deduction item " + item;
+        }
+
+        SimulatedBatch batch = batchesFor(item.sku(), item.mrp()).stream()
+                .filter(candidate -> candidate.batchNo().equals(item.batchNo()))
+                .findFirst()
+                .orElse(null);
+
+        if (batch == null) {
+            return "Unknown batch " + item.batchNo() + " for " + item.sku() + "||" + item.mrp();
+        }
+
+        while (true) {
+            int available = batch.quantity().get();
+            if (available < item.quantity()) {
+                return "Insufficient stock for batch " + item.batchNo() + ": requested " + item.quantity() + ", available " + available;
+            }
+            if (batch.quantity().compareAndSet(available, available - item.quantity())) {
+                applied.add(Map.entry(batch, item.quantity()));
+                return null;
+            }
+        }
+    }
+
+    private List<SimulatedBatch> batchesFor(String sku, Double mrp) {
+        return stock.computeIfAbsent(InventoryClient.skuMrpKey(sku, mrp), key -> seed(key, sku.trim()));
+    }
+
+    private List<SimulatedBatch> seed(String key, String sku) {
+
+        Random random = new Random(key.hashCode());
+        LocalDate today = LocalDate.now();
+        List<SimulatedBatch> batches = new ArrayList<>(batchesPerSku);
+
+        for (int i = 0; i < batchesPerSku; i++) {
+            batches.add(new SimulatedBatch(
+                    sku.toUpperCase() + "-B" + (i + 1),
+                    today.plusDays(30 + random.nextInt(335)),
+                    new AtomicInteger(quantityPerBatch)
+            ));
+        }
+
+        return batches;
+    }
+
+    private static Map<String, Object> envelope(Object data) {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("success", true);
+        envelope.put("message", "Inventory fetched successfully");
+        envelope.put("data", data);
+        return envelope;
+    }
+
+    private record SimulatedBatch(String batchNo, LocalDate expiryDate, AtomicInteger quantity) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record SkuMrpQuery(String sku, Double mrp) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record SaveItem(String sku, Double mrp, String batchNo, Integer quantity) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record SaveRequest(String operation, List<SaveItem> items) {
+    }
+
+    public record SaveOutcome(boolean accepted, boolean duplicate, int appliedItems, String message) {
+
+        static SaveOutcome applied(int appliedItems) {
+            return new SaveOutcome(true, false, appliedItems, "Inventory updated successfully");
+        }
+
+        static SaveOutcome duplicate() {
+            return new SaveOutcome(true, true, 0, "Duplicate request, already applied");
+        }
+
+        static SaveOutcome rejected(String message) {
+            return new SaveOutcome(false, false, 0, message);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.addverb.outbound_service.mock;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.SecurityFilterChain;
+
+
+/**
+ * The inventory client calls the simulator without a user token, so its endpoints get their own open chain.
+ */
+@Configuration
+@Profile("inventory-sim")
+public class InventorySimulatorSecurityConfig {
+
+    @Bean
+    @Order(1)
+    public SecurityFilterChain inventorySimulatorFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/api/inventory/**")
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
+
+        return http.build();
+    }
+}
@@ -1,64 +1,65 @@
-//package com.addverb.outbound_service.mock;
-//
-//import com.addverb.outbound_service.inventory.InventoryBatchResponse;
-//import com.addverb.outbound_service.inventory.InventoryBulkDeductRequest;
-//import com.addverb.outbound_service.inventory.InventoryDeductRequest;
-//import org.springframework.web.bind.annotation.*;
-//
-//import java.time.LocalDate;
-//import java.util.List;
-//
-//
-//@RestController
-//@RequestMapping("/api/inventory")
-//public class MockInventoryController {
-//
-//    @GetMapping("/batches")
-//    public List<InventoryBatchResponse> getBatches(@RequestParam String skuCode, @RequestParam Double mrp) {
-//
-//        InventoryBatchResponse b1 = new InventoryBatchResponse();
-//        b1.setBatchNo("BATCH-1");
-//        b1.setExpiryDate(LocalDate.now().plusDays(10));
-//        b1.setMrp(mrp);
-//        b1.setQuantity(5);
-//
-//        InventoryBatchResponse b2 = new InventoryBatchResponse();
-//        b2.setBatchNo("BATCH-2");
-//        b2.setExpiryDate(LocalDate.now().plusDays(30));
-//        b2.setMrp(mrp);
-//        b2.setQuantity(10);
-//
-//        return List.of(b1, b2);
-//    }
-//
-//    @PostMapping("/deduct/bulk")
-//    public void deductInventoryBulk(@RequestBody InventoryBulkDeductRequest request) {
-//
-//        if (request.getOrderNumber() == null || request.getOrderNumber().isBlank())
-//            throw new RuntimeException("Order number is required");
-//
-//        if (request.getSkuCode() == null || request.getSkuCode().isBlank())
-//            throw new RuntimeException("SKU code is required");
-//
-//        if (request.getAllocations() == null || request.getAllocations().isEmpty())
-//            throw new RuntimeException("No allocations supplied");
-//
-//        boolean invalid = request.getAllocations().stream()
-//                .anyMatch(allocation -> allocation.getQuantity() == null || allocation.getQuantity() <= 0 || allocation.getQuantity() > 10);
-//
-//        if (invalid)
-//            throw new RuntimeException("Not enough stock");
-//    }
-//
-//    @PostMapping("/deduct")
-//    public void deductInventory(@RequestBody InventoryDeductRequest request) {
-//        if (request.getQuantity() > 10)
-//            throw new RuntimeException("Not enough stock");
-//    }
-//
-//}
-//
-//
-//
-//
-//
+package com.addverb.outbound_service.mock;
+
+import com.addverb.outbound_service.inventory.InventoryClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+
+/**
+ * Serves the inventory API that {@link InventoryClient} calls, backed by {@link InventorySimulator}.
+ * Point {@code app.inventory.base-url} at this controller by running with the {@code inventory-sim} profile.
+ */
+@RestController
+@RequestMapping("/api/inventory")
+@Profile("inventory-sim")
+@RequiredArgsConstructor
+public class MockInventoryController {
+
+    private final InventorySimulator simulator;
+
+    @PostMapping("/available")
+    public Mono<ResponseEntity<Object>> getAvailableBatches(@RequestBody List<InventorySimulator.SkuMrpQuery> queries) {
+        return simulated(() -> ResponseEntity.ok(simulator.available(queries)));
+    }
+
+    @PostMapping("/save")
+    public Mono<ResponseEntity<Object>> saveInventory(
+            @RequestHeader(value = InventoryClient.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody InventorySimulator.SaveRequest request) {
+
+        return simulated(() -> {
+            InventorySimulator.SaveOutcome outcome = simulator.save(idempotencyKey, request.items());
+            return ResponseEntity.status(outcome.accepted() ? HttpStatus.OK : HttpStatus.CONFLICT)
+                    .body(body(outcome.accepted(), outcome.message()));
+        });
+    }
+
+    @PostMapping("/sim/reset")
+    public ResponseEntity<Object> reset() {
+        simulator.reset();
+        return ResponseEntity.ok(body(true, "Inventory simulator reset"));
+    }
+
+    private Mono<ResponseEntity<Object>> simulated(Supplier<ResponseEntity<Object>> handler) {
+        return Mono.delay(simulator.nextLatency())
+                .map(tick -> simulator.shouldFail()
+                        ? ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body(false, "Simulated inventory failure"))
+                        : handler.get());
+    }
+
+    private static Map<String, Object> body(boolean success, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", success);
+        body.put("message", message);
+        return body;
+    }
+}
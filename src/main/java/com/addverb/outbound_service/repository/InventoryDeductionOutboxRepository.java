@@ -0,0 +1,83 @@
+package com.addverb.outbound_service.repository;
+
+import com.addverb.outbound_service.entity.InventoryDeductionOutbox;
+import com.addverb.outbound_service.enums.OutboxStatus;
+import com.addverb.outbound_service.repository.projection.PendingDeductionView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+
+public interface InventoryDeductionOutboxRepository extends JpaRepository<InventoryDeductionOutbox, Long> {
+
+    /**
+     * Due rows, locked; rows already locked by another dispatcher are skipped (READPAST on SQL Server).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+    SELECT o FROM InventoryDeductionOutbox o
+    WHERE o.status = :status AND o.nextAttemptAt <= :now
+    ORDER BY o.id
+    """)
+    List<InventoryDeductionOutbox> findDueForUpdate(
+            @Param("status") OutboxStatus status,
+            @Param("now") LocalDateTime now,
+            Pageable limit);
+
+    /**
+     * Rows of the given dispatch keys, locked and in id order, so a retried key is claimed as a whole and resends
+     * its items in the order they were first sent.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+    SELECT o FROM InventoryDeductionOutbox o
+    WHERE o.dispatchKey IN :dispatchKeys AND o.status = :status
+    ORDER BY o.id
+    """)
+    List<InventoryDeductionOutbox> findByDispatchKeysForUpdate(
+            @Param("dispatchKeys") Collection<String> dispatchKeys,
+            @Param("status") OutboxStatus status);
+
+    @Modifying
+    @Query("UPDATE InventoryDeductionOutbox o SET o.status = :status, o.sentAt = :sentAt WHERE o.id IN :ids")
+    int markSent(
+            @Param("ids") List<Long> ids,
+            @Param("status") OutboxStatus status,
+            @Param("sentAt") LocalDateTime sentAt);
+
+    @Query("""
+    SELECT new com.addverb.outbound_service.repository.projection.PendingDeductionView(
+        o.skuCode, o.mrp, o.batchNo, SUM(o.quantity))
+    FROM InventoryDeductionOutbox o
+    WHERE o.skuCode IN :skuCodes
+      AND (o.status = com.addverb.outbound_service.enums.OutboxStatus.PENDING
+           OR o.status = com.addverb.outbound_service.enums.OutboxStatus.FAILED
+           OR (o.status = com.addverb.outbound_service.enums.OutboxStatus.SENT AND o.sentAt >= :since))
+    GROUP BY o.skuCode, o.mrp, o.batchNo
+    """)
+    List<PendingDeductionView> findUnreflectedDeductions(
+            @Param("skuCodes") List<String> skuCodes,
+            @Param("since") LocalDateTime since);
+
+    /**
+     * Deductions recorded here that a stock snapshot fetched at {@code since} may not include: rows still pending,
+     * rows parked as failed and rows sent after the fetch started.
+     */
+    default List<PendingDeductionView> findAllUnreflectedDeductions(Collection<String> skuCodes, LocalDateTime since) {
+        List<String> values = new ArrayList<>(skuCodes);
+        List<PendingDeductionView> views = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += OrderRepository.IN_CLAUSE_CHUNK_SIZE) {
+            views.addAll(findUnreflectedDeductions(
+                    values.subList(from, Math.min(from + OrderRepository.IN_CLAUSE_CHUNK_SIZE, values.size())), since));
+        }
+        return views;
+    }
+}
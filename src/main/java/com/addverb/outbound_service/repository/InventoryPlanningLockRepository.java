@@ -0,0 +1,55 @@
+package com.addverb.outbound_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exclusive SQL Server application locks owned by the caller's transaction, so they are released on commit or
+ * rollback. Locks of one call are requested in a single batch, in the order given; the batch stops at the first
+ * lock that times out.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryPlanningLockRepository {
+
+    private static final String GET_APPLOCK = """
+            IF @result >= 0
+                EXEC @result = sp_getapplock @Resource = ?, @LockMode = 'Exclusive', @LockOwner = 'Transaction', @LockTimeout = ?;
+            """;
+
+    // Two parameters per lock, well below the 2100 parameter limit of a request
+    private static final int LOCKS_PER_BATCH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns {@code false} when a lock could not be taken within {@code timeoutMillis}; locks taken before it stay
+     * held until the transaction ends.
+     */
+    public boolean lockAll(List<String> resources, int timeoutMillis) {
+
+        for (int from = 0; from < resources.size(); from += LOCKS_PER_BATCH) {
+            List<String> chunk = resources.subList(from, Math.min(from + LOCKS_PER_BATCH, resources.size()));
+
+            StringBuilder sql = new StringBuilder("SET NOCOUNT ON; DECLARE @result INT = 0;\n");
+            List<Object> args = new ArrayList<>(chunk.size() * 2);
+            for (String resource : chunk) {
+                sql.append(GET_APPLOCK);
+                args.add(resource);
+                args.add(timeoutMillis);
+            }
+            sql.append("SELECT @result;");
+
+            Integer result = jdbcTemplate.queryForObject(sql.toString(), Integer.class, args.toArray());
+            if (result == null || result < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
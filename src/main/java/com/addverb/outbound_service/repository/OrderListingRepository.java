@@ -0,0 +1,26 @@
+package com.addverb.outbound_service.repository;
+
+import com.addverb.outbound_service.entity.Order;
+import com.addverb.outbound_service.repository.projection.OrderListView;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+
+/**
+ * Listing queries that select {@link OrderListView} columns directly, so no managed {@link Order} is created.
+ */
+public interface OrderListingRepository {
+
+    /**
+     * @param limit maximum rows to return, or a negative value for no limit
+     */
+    List<OrderListView> findListViews(Specification<Order> spec, Sort sort, long offset, int limit);
+
+    /**
+     * Forward-only stream of matching rows; must be consumed and closed inside a transaction.
+     */
+    Stream<OrderListView> streamListViews(Specification<Order> spec, Sort sort, int fetchSize);
+}
@@ -0,0 +1,79 @@
+package com.addverb.outbound_service.repository;
+
+import com.addverb.outbound_service.entity.Order;
+import com.addverb.outbound_service.repository.projection.OrderListView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+
+@RequiredArgsConstructor
+public class OrderListingRepositoryImpl implements OrderListingRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<OrderListView> findListViews(Specification<Order> spec, Sort sort, long offset, int limit) {
+
+        TypedQuery<OrderListView> query = listViewQuery(spec, sort);
+
+        if (offset > 0) {
+            query.setFirstResult(Math.toIntExact(offset));
+        }
+        if (limit >= 0) {
+            query.setMaxResults(limit);
+        }
+
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<OrderListView> streamListViews(Specification<Order> spec, Sort sort, int fetchSize) {
+        return listViewQuery(spec, sort)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private TypedQuery<OrderListView> listViewQuery(Specification<Order> spec, Sort sort) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderListView> query = cb.createQuery(OrderListView.class);
+        Root<Order> root = query.from(Order.class);
+
+        query.select(cb.construct(
+                OrderListView.class,
+                root.get("id"),
+                root.get("orderNumber"),
+                root.get("customerName"),
+                root.get("address"),
+                root.get("skuCode"),
+                root.get("mrp"),
+                root.get("requestedQty"),
+                root.get("allocatedQty"),
+                root.get("status"),
+                root.get("createdAt")
+        ));
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+
+        return entityManager.createQuery(query);
+    }
+}
@@ -2,6 +2,7 @@ package com.addverb.outbound_service.repository;
 
 import com.addverb.outbound_service.entity.Order;
 import com.addverb.outbound_service.enums.OrderStatus;
+import com.addverb.outbound_service.repository.projection.OrderDemandView;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,20 +14,89 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 
-public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>, OrderListingRepository {
 
     Optional<Order> findByOrderNumber(String orderNumber);
 
-//    List<Order> findByOrderNumberIn(List<String> orderNumbers);
+    /**
+     * SQL Server accepts at most 2100 bind parameters per statement, so IN lists are split into chunks of this size.
+     */
+    int IN_CLAUSE_CHUNK_SIZE = 2000;
+
+    List<Order> findByOrderNumberIn(List<String> orderNumbers);
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT o FROM Order o WHERE o.orderNumber IN :orderNumbers")
     List<Order> findByOrderNumberInForUpdate(@Param("orderNumbers") List<String> orderNumbers);
 
+    @Query("""
+    SELECT new com.addverb.outbound_service.repository.projection.OrderDemandView(
+        o.orderNumber, o.skuCode, o.mrp, o.requestedQty, o.allocatedQty, o.status)
+    FROM Order o
+    WHERE o.orderNumber IN :orderNumbers
+    """)
+    List<OrderDemandView> findDemandViewsByOrderNumberIn(@Param("orderNumbers") List<String> orderNumbers);
+
+    @Query("SELECT o.id FROM Order o WHERE o.orderNumber IN :orderNumbers")
+    List<Long> findIdsByOrderNumberIn(@Param("orderNumbers") List<String> orderNumbers);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Order> findByIdInForUpdate(@Param("ids") List<Long> ids);
+
+    /**
+     * Loads any number of orders without locking them, one IN chunk at a time.
+     */
+    default List<Order> findAllByOrderNumbers(Collection<String> orderNumbers) {
+        List<Order> orders = new ArrayList<>(orderNumbers.size());
+        for (List<String> chunk : chunked(new ArrayList<>(orderNumbers))) {
+            orders.addAll(findByOrderNumberIn(chunk));
+        }
+        return orders;
+    }
+
+    default List<OrderDemandView> findAllDemandViewsByOrderNumbers(Collection<String> orderNumbers) {
+        List<OrderDemandView> views = new ArrayList<>(orderNumbers.size());
+        for (List<String> chunk : chunked(new ArrayList<>(orderNumbers))) {
+            views.addAll(findDemandViewsByOrderNumberIn(chunk));
+        }
+        return views;
+    }
+
+    /**
+     * Locks any number of orders with PESSIMISTIC_WRITE. The ids are resolved first and the rows are then
+     * locked chunk by chunk in ascending id order, so concurrent waves always acquire locks in the same
+     * order regardless of how their order numbers were listed.
+     */
+    default List<Order> findAllByOrderNumbersForUpdate(Collection<String> orderNumbers) {
+        List<Long> ids = new ArrayList<>(orderNumbers.size());
+        for (List<String> chunk : chunked(new ArrayList<>(orderNumbers))) {
+            ids.addAll(findIdsByOrderNumberIn(chunk));
+        }
+        Collections.sort(ids);
+
+        List<Order> orders = new ArrayList<>(ids.size());
+        for (List<Long> chunk : chunked(ids)) {
+            orders.addAll(findByIdInForUpdate(chunk));
+        }
+        return orders;
+    }
+
+    private static <T> List<List<T>> chunked(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            chunks.add(values.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, values.size())));
+        }
+        return chunks;
+    }
+
     @Override
     Page<Order> findAll(Pageable pageable);
 
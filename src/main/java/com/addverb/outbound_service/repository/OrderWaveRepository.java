@@ -0,0 +1,180 @@
+package com.addverb.outbound_service.repository;
+
+import com.addverb.outbound_service.entity.Order;
+import com.addverb.outbound_service.enums.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Set-based writes for a whole allocation wave. The totals of every order are sent as one batched,
+ * version-checked UPDATE instead of one entity flush per order.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderWaveRepository {
+
+    private static final String UPDATE_ALLOCATION_TOTALS = """
+            UPDATE orders
+            SET allocated_qty = ?, status = ?, updated_at = ?, version = version + 1
+            WHERE id = ? AND version = ?
+            """;
+
+    private static final String RESTORE_ALLOCATION_TOTALS = """
+            UPDATE orders
+            SET allocated_qty = ?, status = ?, updated_at = ?, version = ?
+            WHERE id = ? AND version = ?
+            """;
+
+    private static final String RELEASE_ALLOCATION = """
+            UPDATE orders
+            SET allocated_qty = allocated_qty - ?,
+                status = CASE
+                    WHEN allocated_qty - ? <= 0 THEN 'PENDING'
+                    WHEN allocated_qty - ? >= requested_qty THEN 'COMPLETED'
+                    ELSE 'PARTIAL'
+                END,
+                updated_at = ?,
+                version = version + 1
+            WHERE id = ?
+            """;
+
+    private static final String SELECT_WRITTEN_TOTALS = """
+            SELECT id, version, allocated_qty, status, updated_at
+            FROM orders
+            WHERE id IN (%s)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Applies the updates in one JDBC batch. The result is index-aligned with {@code updates}; an entry is
+     * {@code false} when the row's version no longer matched, i.e. the order was changed by someone else.
+     * The managed {@link Order} entities are not touched and must not be modified afterwards.
+     * <p>
+     * A driver may report {@link Statement#SUCCESS_NO_INFO} instead of a row count; such entries are confirmed by
+     * reading the rows back, since counting them as applied would skip the version check.
+     */
+    public boolean[] updateAllocationTotals(List<OrderTotalsUpdate> updates) {
+
+        boolean[] applied = new boolean[updates.size()];
+        if (updates.isEmpty()) {
+            return applied;
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_ALLOCATION_TOTALS, updates, updates.size(), (ps, update) -> {
+            ps.setInt(1, update.allocatedQty());
+            ps.setString(2, update.status().name());
+            ps.setTimestamp(3, Timestamp.valueOf(update.updatedAt()));
+            ps.setLong(4, update.orderId());
+            ps.setLong(5, update.expectedVersion());
+        });
+
+        List<Integer> unconfirmed = new ArrayList<>();
+        for (int i = 0; i < applied.length; i++) {
+            int count = counts[0][i];
+            applied[i] = count > 0;
+            if (count == Statement.SUCCESS_NO_INFO) {
+                unconfirmed.add(i);
+            }
+        }
+
+        if (!unconfirmed.isEmpty()) {
+            confirmWritten(updates, unconfirmed, applied);
+        }
+
+        return applied;
+    }
+
+    /**
+     * Marks an update applied only if its row now carries exactly the written version and totals. Rows this
+     * transaction updated stay locked by it, so the values read back are its own.
+     */
+    private void confirmWritten(List<OrderTotalsUpdate> updates, List<Integer> indexes, boolean[] applied) {
+
+        Map<Long, OrderTotalsUpdate> updateById = new HashMap<>();
+        indexes.forEach(index -> updateById.put(updates.get(index).orderId(), updates.get(index)));
+
+        Set<Long> written = new HashSet<>();
+        List<Long> ids = new ArrayList<>(updateById.keySet());
+
+        for (int from = 0; from < ids.size(); from += OrderRepository.IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + OrderRepository.IN_CLAUSE_CHUNK_SIZE, ids.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+
+            jdbcTemplate.query(SELECT_WRITTEN_TOTALS.formatted(placeholders), rs -> {
+                OrderTotalsUpdate update = updateById.get(rs.getLong("id"));
+                Timestamp updatedAt = rs.getTimestamp("updated_at");
+
+                if (update != null
+                        && rs.getLong("version") == update.expectedVersion() + 1
+                        && rs.getInt("allocated_qty") == update.allocatedQty()
+                        && update.status().name().equals(rs.getString("status"))
+                        && updatedAt != null
+                        && updatedAt.toLocalDateTime().truncatedTo(ChronoUnit.MICROS)
+                                .equals(update.updatedAt().truncatedTo(ChronoUnit.MICROS))) {
+                    written.add(update.orderId());
+                }
+            }, chunk.toArray());
+        }
+
+        for (int index : indexes) {
+            applied[index] = written.contains(updates.get(index).orderId());
+        }
+    }
+
+    /**
+     * Puts back the totals and version the given entities were loaded with, undoing an
+     * {@link #updateAllocationTotals} applied to them earlier in the same, still uncommitted transaction.
+     */
+    public void restoreAllocationTotals(List<Order> orders) {
+
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(RESTORE_ALLOCATION_TOTALS, orders, orders.size(), (ps, order) -> {
+            ps.setInt(1, order.getAllocatedQty());
+            ps.setString(2, order.getStatus().name());
+            ps.setTimestamp(3, Timestamp.valueOf(order.getUpdatedAt()));
+            ps.setLong(4, order.getVersion());
+            ps.setLong(5, order.getId());
+            ps.setLong(6, order.getVersion() + 1);
+        });
+    }
+
+    /**
+     * Subtracts a committed allocation from an order again, relative to its current totals.
+     */
+    public void releaseAllocation(Long orderId, int quantity, LocalDateTime updatedAt) {
+        jdbcTemplate.update(RELEASE_ALLOCATION, quantity, quantity, quantity, Timestamp.valueOf(updatedAt), orderId);
+    }
+
+    public record OrderTotalsUpdate(
+            Long orderId,
+            Long expectedVersion,
+            int requestedQty,
+            int allocatedQty,
+            OrderStatus status,
+            LocalDateTime updatedAt
+    ) {
+
+        public static OrderTotalsUpdate of(Order order, int allocatedNow, LocalDateTime updatedAt) {
+            int allocatedQty = order.getAllocatedQty() + allocatedNow;
+
+            OrderStatus status = order.getStatus();
+            if (allocatedQty == order.getRequestedQty())
+                status = OrderStatus.COMPLETED;
+            else if (allocatedQty > 0)
+                status = OrderStatus.PARTIAL;
+
+            return new OrderTotalsUpdate(order.getId(), order.getVersion(), order.getRequestedQty(), allocatedQty, status, updatedAt);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.addverb.outbound_service.repository.projection;
+
+import com.addverb.outbound_service.enums.OrderStatus;
+
+/**
+ * Read-only slice of an order needed to plan its allocation.
+ */
+public record OrderDemandView(
+        String orderNumber,
+        String skuCode,
+        Double mrp,
+        Integer requestedQty,
+        Integer allocatedQty,
+        OrderStatus status
+) {
+}
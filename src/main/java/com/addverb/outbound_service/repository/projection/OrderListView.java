@@ -0,0 +1,22 @@
+package com.addverb.outbound_service.repository.projection;
+
+import com.addverb.outbound_service.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns shown in order listings; {@code id} is carried for keyset cursors only.
+ */
+public record OrderListView(
+        Long id,
+        String orderNumber,
+        String customerName,
+        String address,
+        String skuCode,
+        Double mrp,
+        Integer requestedQty,
+        Integer allocatedQty,
+        OrderStatus status,
+        LocalDateTime createdAt
+) {
+}
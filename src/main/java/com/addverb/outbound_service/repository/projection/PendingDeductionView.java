@@ -0,0 +1,12 @@
+package com.addverb.outbound_service.repository.projection;
+
+/**
+ * Quantity of one batch recorded in the deduction outbox that the inventory service may not reflect yet.
+ */
+public record PendingDeductionView(
+        String skuCode,
+        Double mrp,
+        String batchNo,
+        Long quantity
+) {
+}
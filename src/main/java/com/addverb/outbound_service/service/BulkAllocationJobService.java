@@ -0,0 +1,230 @@
+package com.addverb.outbound_service.service;
+
+import com.addverb.outbound_service.dto.BulkAllocationJobEvent;
+import com.addverb.outbound_service.dto.BulkAllocationJobResponse;
+import com.addverb.outbound_service.dto.BulkAllocationResponse;
+import com.addverb.outbound_service.dto.BulkOrderAllocationResult;
+import com.addverb.outbound_service.enums.BulkAllocationJobStatus;
+import com.addverb.outbound_service.exception.BusinessException;
+import com.addverb.outbound_service.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs bulk allocation waves in the background. A wave is split into fixed-size chunks and every chunk
+ * goes through {@link OrderService#allocateOrdersBulk(List)} on its own, so each chunk commits in a short
+ * transaction and only holds row locks for its own orders. Progress is published per chunk and can be
+ * followed as Server-Sent Events.
+ * <p>
+ * Waiting jobs are bounded by {@code queue-capacity}, each job replays only its last {@code event-replay-limit}
+ * events to late subscribers, and finished jobs are purged on a schedule once {@code retention-minutes} passed.
+ */
+@Service
+@Slf4j
+public class BulkAllocationJobService {
+
+    private final OrderService orderService;
+    private final int chunkSize;
+    private final Duration retention;
+    private final int eventReplayLimit;
+    private final ThreadPoolExecutor jobExecutor;
+    private final Map<String, BulkAllocationJob> jobs = new ConcurrentHashMap<>();
+
+    public BulkAllocationJobService(
+            OrderService orderService,
+            @Value("${app.allocation.jobs.chunk-size:500}") int chunkSize,
+            @Value("${app.allocation.jobs.concurrency:2}") int concurrency,
+            @Value("${app.allocation.jobs.retention-minutes:60}") long retentionMinutes,
+            @Value("${app.allocation.jobs.queue-capacity:100}") int queueCapacity,
+            @Value("${app.allocation.jobs.event-replay-limit:50}") int eventReplayLimit) {
+        this.orderService = orderService;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.retention = Duration.ofMinutes(retentionMinutes);
+        this.eventReplayLimit = Math.max(1, eventReplayLimit);
+        int workers = Math.max(1, concurrency);
+        this.jobExecutor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    public BulkAllocationJobResponse submit(List<String> orderNumbers) {
+
+        List<String> waveOrderNumbers = orderNumbers.stream()
+                .map(orderNumber -> orderNumber == null ? null : orderNumber.trim())
+                .distinct()
+                .toList();
+
+        BulkAllocationJob job = new BulkAllocationJob(UUID.randomUUID().toString(), waveOrderNumbers, eventReplayLimit);
+        jobs.put(job.jobId, job);
+
+        try {
+            jobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.jobId);
+            throw new TooManyRequestsException(
+                    "Too many bulk allocation jobs are queued, please retry later", "BULK_ALLOCATION_QUEUE_FULL");
+        }
+
+        return job.toResponse(chunkSize);
+    }
+
+    public BulkAllocationJobResponse getJob(String jobId) {
+        return findJob(jobId).toResponse(chunkSize);
+    }
+
+    public Flux<ServerSentEvent<BulkAllocationJobEvent>> streamEvents(String jobId) {
+        BulkAllocationJob job = findJob(jobId);
+
+        return job.events.asFlux()
+                .map(event -> ServerSentEvent.<BulkAllocationJobEvent>builder()
+                        .id(event.getJobId() + "-" + event.getChunkIndex())
+                        .event(event.getStatus().name())
+                        .data(event)
+                        .build());
+    }
+
+    private BulkAllocationJob findJob(String jobId) {
+        BulkAllocationJob job = jobs.get(jobId);
+        if (job == null)
+            throw new BusinessException("Bulk allocation job not found: " + jobId);
+        return job;
+    }
+
+    private void run(BulkAllocationJob job) {
+
+        job.status = BulkAllocationJobStatus.RUNNING;
+        List<String> orderNumbers = job.orderNumbers;
+        int chunkIndex = 0;
+
+        try {
+            for (int from = 0; from < orderNumbers.size(); from += chunkSize) {
+                List<String> chunk = orderNumbers.subList(from, Math.min(from + chunkSize, orderNumbers.size()));
+                List<BulkOrderAllocationResult> chunkResults = allocateChunk(chunk);
+
+                job.record(chunk.size(), chunkResults);
+                job.publish(chunkIndex++, BulkAllocationJobStatus.RUNNING, null, chunkResults);
+            }
+
+            job.finish(BulkAllocationJobStatus.COMPLETED);
+            job.publish(chunkIndex, BulkAllocationJobStatus.COMPLETED, "Bulk allocation job completed", List.of());
+            job.events.tryEmitComplete();
+        } catch (Exception ex) {
+            log.error("Bulk allocation job {} failed", job.jobId, ex);
+            job.finish(BulkAllocationJobStatus.FAILED);
+            job.publish(chunkIndex, BulkAllocationJobStatus.FAILED, "Bulk allocation job failed: " + ex.getMessage(), List.of());
+            job.events.tryEmitComplete();
+        }
+    }
+
+    private List<BulkOrderAllocationResult> allocateChunk(List<String> chunk) {
+        try {
+            BulkAllocationResponse response = orderService.allocateOrdersBulk(new ArrayList<>(chunk));
+            return response.getResults();
+        } catch (RuntimeException ex) {
+            log.warn("Bulk allocation chunk of {} orders failed: {}", chunk.size(), ex.getMessage());
+            return chunk.stream()
+                    .map(orderNumber -> BulkOrderAllocationResult.builder()
+                            .orderNumber(orderNumber)
+                            .success(false)
+                            .message("Allocation failed for order " + orderNumber + ": " + ex.getMessage())
+                            .build())
+                    .toList();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.allocation.jobs.purge-interval-ms:60000}")
+    void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    private static final class BulkAllocationJob {
+
+        private final String jobId;
+        private final List<String> orderNumbers;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final Sinks.Many<BulkAllocationJobEvent> events;
+
+        private volatile BulkAllocationJobStatus status = BulkAllocationJobStatus.QUEUED;
+        private volatile LocalDateTime completedAt;
+        private int processedOrders;
+        private int successCount;
+        private int failureCount;
+
+        private BulkAllocationJob(String jobId, List<String> orderNumbers, int eventReplayLimit) {
+            this.jobId = jobId;
+            this.orderNumbers = orderNumbers;
+            this.events = Sinks.many().replay().limit(eventReplayLimit);
+        }
+
+        private synchronized void record(int chunkOrders, List<BulkOrderAllocationResult> chunkResults) {
+            int chunkSuccess = (int) chunkResults.stream().filter(BulkOrderAllocationResult::isSuccess).count();
+            processedOrders += chunkOrders;
+            successCount += chunkSuccess;
+            failureCount += chunkResults.size() - chunkSuccess;
+        }
+
+        private synchronized void finish(BulkAllocationJobStatus finalStatus) {
+            status = finalStatus;
+            completedAt = LocalDateTime.now();
+        }
+
+        private synchronized void publish(
+                int chunkIndex,
+                BulkAllocationJobStatus eventStatus,
+                String message,
+                List<BulkOrderAllocationResult> results) {
+
+            events.tryEmitNext(BulkAllocationJobEvent.builder()
+                    .jobId(jobId)
+                    .status(eventStatus)
+                    .chunkIndex(chunkIndex)
+                    .totalOrders(orderNumbers.size())
+                    .processedOrders(processedOrders)
+                    .successCount(successCount)
+                    .failureCount(failureCount)
+                    .message(Objects.requireNonNullElse(message, "Processed " + processedOrders + " of " + orderNumbers.size() + " orders"))
+                    .results(results)
+                    .build());
+        }
+
+        private synchronized BulkAllocationJobResponse toResponse(int chunkSize) {
+            return BulkAllocationJobResponse.builder()
+                    .jobId(jobId)
+                    .status(status)
+                    .totalOrders(orderNumbers.size())
+                    .processedOrders(processedOrders)
+                    .successCount(successCount)
+                    .failureCount(failureCount)
+                    .chunkSize(chunkSize)
+                    .createdAt(createdAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
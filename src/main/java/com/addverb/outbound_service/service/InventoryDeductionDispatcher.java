@@ -0,0 +1,214 @@
+package com.addverb.outbound_service.service;
+
+import com.addverb.outbound_service.entity.InventoryDeductionOutbox;
+import com.addverb.outbound_service.enums.OutboxStatus;
+import com.addverb.outbound_service.exception.InventoryServiceException;
+import com.addverb.outbound_service.exception.InventoryUnavailableException;
+import com.addverb.outbound_service.inventory.InventoryClient;
+import com.addverb.outbound_service.inventory.InventoryDeductRequest;
+import com.addverb.outbound_service.inventory.InventoryDeductionCompactor;
+import com.addverb.outbound_service.repository.InventoryDeductionOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drains the deduction outbox to {@code /save}.
+ * <p>
+ * Each poll claims due rows under a short lease and groups them by dispatch key; rows dispatched for the first
+ * time get a new key, and a retried key is locked and leased with all of its rows. One {@code /save} call is sent per key with that key as its idempotency key, so a retry after
+ * a lost response or a crash resends the identical batch and the inventory service can discard the duplicate.
+ * Failed batches back off exponentially and are parked as {@link OutboxStatus#FAILED} after {@code max-attempts}.
+ */
+@Component
+@Slf4j
+public class InventoryDeductionDispatcher {
+
+    private final InventoryDeductionOutboxRepository outboxRepository;
+    private final InventoryDeductionOutboxService outboxService;
+    private final InventoryClient inventoryClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final long leaseMillis;
+
+    public InventoryDeductionDispatcher(
+            InventoryDeductionOutboxRepository outboxRepository,
+            InventoryDeductionOutboxService outboxService,
+            InventoryClient inventoryClient,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.inventory.deduction.outbox.batch-size:500}") int batchSize,
+            @Value("${app.inventory.deduction.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.inventory.deduction.outbox.backoff-ms:500}") long backoffMillis,
+            @Value("${app.inventory.deduction.outbox.max-backoff-ms:60000}") long maxBackoffMillis,
+            @Value("${app.inventory.deduction.outbox.lease-ms:30000}") long leaseMillis) {
+        this.outboxRepository = outboxRepository;
+        this.outboxService = outboxService;
+        this.inventoryClient = inventoryClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.leaseMillis = leaseMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.deduction.outbox.poll-ms:200}")
+    public void dispatch() {
+
+        if (!outboxService.isEnabled()) {
+            return;
+        }
+
+        while (true) {
+            List<DispatchBatch> batches;
+            try {
+                batches = transactionTemplate.execute(status -> claim());
+            } catch (PessimisticLockingFailureException ex) {
+                // Two dispatchers each held part of a retried key; the rolled-back claim's rows stay due
+                log.debug("Inventory deduction claim lost a lock conflict, retrying on the next poll: {}", ex.getMessage());
+                return;
+            }
+
+            if (batches == null || batches.isEmpty()) {
+                return;
+            }
+
+            int claimedRows = 0;
+            for (DispatchBatch batch : batches) {
+                send(batch);
+                claimedRows += batch.rowIds().size();
+            }
+
+            if (claimedRows < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private List<DispatchBatch> claim() {
+
+        LocalDateTime now = LocalDateTime.now();
+        List<InventoryDeductionOutbox> due = outboxRepository.findDueForUpdate(OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+
+        if (due.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, List<InventoryDeductionOutbox>> rowsByKey = new LinkedHashMap<>();
+
+        // Retries must resend exactly the rows first sent under their key, even if the page cut a group short
+        Set<String> retryKeys = new HashSet<>();
+        for (InventoryDeductionOutbox row : due) {
+            if (row.getDispatchKey() != null) {
+                retryKeys.add(row.getDispatchKey());
+            }
+        }
+        if (!retryKeys.isEmpty()) {
+            Map<String, List<InventoryDeductionOutbox>> retryRowsByKey = new LinkedHashMap<>();
+            for (InventoryDeductionOutbox row : outboxRepository.findByDispatchKeysForUpdate(retryKeys, OutboxStatus.PENDING)) {
+                retryRowsByKey.computeIfAbsent(row.getDispatchKey(), key -> new ArrayList<>()).add(row);
+            }
+
+            // Rows of a key share their next attempt, so one not due means another dispatcher leased the key meanwhile
+            retryRowsByKey.forEach((dispatchKey, rows) -> {
+                if (rows.stream().noneMatch(row -> row.getNextAttemptAt().isAfter(now))) {
+                    rowsByKey.put(dispatchKey, rows);
+                }
+            });
+        }
+
+        List<InventoryDeductionOutbox> fresh = due.stream()
+                .filter(row -> row.getDispatchKey() == null)
+                .toList();
+        if (!fresh.isEmpty()) {
+            String dispatchKey = UUID.randomUUID().toString();
+            fresh.forEach(row -> row.setDispatchKey(dispatchKey));
+            rowsByKey.put(dispatchKey, fresh);
+        }
+
+        LocalDateTime leaseUntil = now.plusNanos(leaseMillis * 1_000_000L);
+        List<DispatchBatch> batches = new ArrayList<>(rowsByKey.size());
+
+        rowsByKey.forEach((dispatchKey, rows) -> {
+            rows.forEach(row -> row.setNextAttemptAt(leaseUntil));
+            batches.add(new DispatchBatch(
+                    dispatchKey,
+                    rows.stream().map(InventoryDeductionOutbox::getId).toList(),
+                    InventoryDeductionCompactor.compact(rows.stream()
+                            .map(row -> InventoryDeductRequest.builder()
+                                    .sku(row.getSkuCode())
+                                    .mrp(row.getMrp())
+                                    .batchNo(row.getBatchNo())
+                                    .quantity(row.getQuantity())
+                                    .build())
+                            .toList()).items()
+            ));
+        });
+
+        return batches;
+    }
+
+    private void send(DispatchBatch batch) {
+        try {
+            inventoryClient.deductInventoryBulk(batch.items(), batch.dispatchKey());
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxRepository.markSent(batch.rowIds(), OutboxStatus.SENT, LocalDateTime.now()));
+        } catch (InventoryServiceException | InventoryUnavailableException ex) {
+            transactionTemplate.executeWithoutResult(status -> recordFailure(batch, ex.getMessage()));
+        } catch (RuntimeException ex) {
+            // Anything else (a timeout, a failed markSent) must still back off, not wait out the lease and retry at once
+            log.error("Inventory deduction dispatch {} failed unexpectedly", batch.dispatchKey(), ex);
+            transactionTemplate.executeWithoutResult(status -> recordFailure(batch, ex.toString()));
+        }
+    }
+
+    private void recordFailure(DispatchBatch batch, String error) {
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean parked = false;
+
+        for (InventoryDeductionOutbox row : outboxRepository.findAllById(batch.rowIds())) {
+            int attempts = row.getAttempts() + 1;
+            row.setAttempts(attempts);
+            row.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+
+            if (attempts >= maxAttempts) {
+                row.setStatus(OutboxStatus.FAILED);
+                parked = true;
+            } else {
+                row.setNextAttemptAt(now.plusNanos(backoffNanos(attempts)));
+            }
+        }
+
+        if (parked) {
+            // Still subtracted from planned stock; needs an operator to replay or cancel the rows
+            log.error("Inventory deduction dispatch {} of {} items parked as FAILED after {} attempts: {}",
+                    batch.dispatchKey(), batch.items().size(), maxAttempts, error);
+            return;
+        }
+
+        log.warn("Inventory deduction dispatch {} of {} items failed: {}", batch.dispatchKey(), batch.items().size(), error);
+    }
+
+    private long backoffNanos(int attempts) {
+        long exponential = backoffMillis << Math.min(attempts - 1, 20);
+        long capped = Math.min(maxBackoffMillis, exponential);
+        long jitter = ThreadLocalRandom.current().nextLong(capped / 5 + 1);
+        return (capped + jitter) * 1_000_000L;
+    }
+
+    private record DispatchBatch(String dispatchKey, List<Long> rowIds, List<InventoryDeductRequest> items) {
+    }
+}
@@ -0,0 +1,153 @@
+package com.addverb.outbound_service.service;
+
+import com.addverb.outbound_service.entity.InventoryDeductionOutbox;
+import com.addverb.outbound_service.enums.InventoryDeductionMode;
+import com.addverb.outbound_service.enums.OutboxStatus;
+import com.addverb.outbound_service.exception.InventoryServiceException;
+import com.addverb.outbound_service.inventory.InventoryBatchResponse;
+import com.addverb.outbound_service.inventory.InventoryClient;
+import com.addverb.outbound_service.inventory.InventoryDeductRequest;
+import com.addverb.outbound_service.repository.InventoryDeductionOutboxRepository;
+import com.addverb.outbound_service.repository.InventoryPlanningLockRepository;
+import com.addverb.outbound_service.repository.projection.PendingDeductionView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Records inventory deductions in this service's database so they commit or roll back with the allocation that
+ * produced them; {@link InventoryDeductionDispatcher} later drains them to {@code /save}.
+ * <p>
+ * Because a wave's rows are invisible to other transactions until it commits, waves planning the same SKU||MRP
+ * take turns under {@link #lockForPlanning}: the next wave fetches stock only after the previous one's rows are
+ * committed and can be subtracted.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryDeductionOutboxService {
+
+    private static final String PLANNING_LOCK_PREFIX = "outbound:inventory-planning:";
+
+    // sp_getapplock resource names are limited to 255 characters
+    private static final int MAX_LOCK_RESOURCE_LENGTH = 255;
+
+    private final InventoryDeductionOutboxRepository outboxRepository;
+    private final InventoryPlanningLockRepository planningLockRepository;
+
+    @Value("${app.inventory.deduction.mode:SYNC}")
+    private InventoryDeductionMode deductionMode;
+
+    @Value("${app.inventory.deduction.outbox.planning-lock-timeout-ms:10000}")
+    private int planningLockTimeoutMillis;
+
+    public boolean isEnabled() {
+        return deductionMode == InventoryDeductionMode.OUTBOX;
+    }
+
+    /**
+     * Takes the planning locks of the given SKU||MRP keys for the rest of the caller's transaction. Keys are
+     * locked in sorted order so overlapping waves cannot deadlock on each other.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockForPlanning(Collection<String> skuMrpKeys) {
+
+        List<String> resources = new TreeSet<>(skuMrpKeys).stream()
+                .map(InventoryDeductionOutboxService::planningLockResource)
+                .toList();
+
+        if (!planningLockRepository.lockAll(resources, planningLockTimeoutMillis)) {
+            throw new InventoryServiceException("Timed out waiting for concurrent allocations of the same SKU to commit");
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(List<InventoryDeductRequest> items) {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        outboxRepository.saveAll(items.stream()
+                .map(item -> InventoryDeductionOutbox.builder()
+                        .skuCode(item.getSku())
+                        .mrp(item.getMrp())
+                        .batchNo(item.getBatchNo())
+                        .quantity(item.getQuantity())
+                        .status(OutboxStatus.PENDING)
+                        .attempts(0)
+                        .nextAttemptAt(now)
+                        .createdAt(now)
+                        .build())
+                .toList());
+    }
+
+    /**
+     * Returns copies of the fetched batches reduced by outbox rows the inventory service may not have applied when
+     * the snapshot was taken, so stock already promised to committed allocations is not planned twice. Rows sent
+     * while the fetch was in flight are subtracted as well, which can only under-state stock, and so are rows
+     * parked as failed: their allocations stand, so their stock stays reserved until the rows are resolved.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, List<InventoryBatchResponse>> withUnreflectedDeductions(
+            Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp,
+            Collection<String> skuCodes,
+            LocalDateTime fetchStartedAt) {
+
+        Map<String, Map<String, Long>> deductedByKeyAndBatch = new HashMap<>();
+        for (PendingDeductionView view : outboxRepository.findAllUnreflectedDeductions(new HashSet<>(skuCodes), fetchStartedAt)) {
+            deductedByKeyAndBatch
+                    .computeIfAbsent(InventoryClient.skuMrpKey(view.skuCode(), view.mrp()), key -> new HashMap<>())
+                    .merge(view.batchNo(), view.quantity(), Long::sum);
+        }
+
+        if (deductedByKeyAndBatch.isEmpty()) {
+            return inventoryBySkuMrp;
+        }
+
+        Map<String, List<InventoryBatchResponse>> adjusted = new HashMap<>(inventoryBySkuMrp);
+        deductedByKeyAndBatch.forEach((key, deductedByBatch) -> {
+            List<InventoryBatchResponse> batches = inventoryBySkuMrp.get(key);
+            if (batches == null) {
+                return;
+            }
+
+            List<InventoryBatchResponse> copies = new ArrayList<>(batches.size());
+            for (InventoryBatchResponse batch : batches) {
+                InventoryBatchResponse copy = new InventoryBatchResponse();
+                copy.setBatchNo(batch.getBatchNo());
+                copy.setExpiryDate(batch.getExpiryDate());
+                copy.setMrp(batch.getMrp());
+                copy.setSku(batch.getSku());
+                copy.setStatus(batch.getStatus());
+
+                long quantity = batch.getQuantity() == null ? 0 : batch.getQuantity();
+                copy.setQuantity((int) Math.max(0, quantity - deductedByBatch.getOrDefault(batch.getBatchNo(), 0L)));
+                copies.add(copy);
+            }
+            adjusted.put(key, copies);
+        });
+
+        return adjusted;
+    }
+
+    private static String planningLockResource(String skuMrpKey) {
+
+        String resource = PLANNING_LOCK_PREFIX + skuMrpKey;
+        if (resource.length() <= MAX_LOCK_RESOURCE_LENGTH) {
+            return resource;
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(skuMrpKey.getBytes(StandardCharsets.UTF_8));
+            return PLANNING_LOCK_PREFIX + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
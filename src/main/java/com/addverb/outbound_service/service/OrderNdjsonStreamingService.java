@@ -0,0 +1,157 @@
+package com.addverb.outbound_service.service;
+
+import com.addverb.outbound_service.dto.OrderResponse;
+import com.addverb.outbound_service.entity.Order;
+import com.addverb.outbound_service.exception.TooManyRequestsException;
+import com.addverb.outbound_service.repository.OrderRepository;
+import com.addverb.outbound_service.repository.projection.OrderListView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+
+/**
+ * Writes orders as newline-delimited JSON straight from a forward-only result set.
+ * <p>
+ * Rows are fetched {@code fetch-size} at a time as {@link OrderListView} projections, so the persistence context
+ * stays empty however many orders match; the output is flushed every {@code flush-every} rows. Writes block while
+ * the client is slow to read, which in turn pauses the cursor.
+ * <p>
+ * Each stream holds a pooled connection for its whole read, so at most {@code max-concurrent} run at once. A slot
+ * is reserved with {@link #reserveSlot()} while the request is still synchronous, so further requests are turned
+ * away with 429 before any output, instead of queueing for connections the rest of the service needs.
+ */
+@Component
+@Slf4j
+public class OrderNdjsonStreamingService {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private final OrderRepository orderRepository;
+    private final ObjectWriter lineWriter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private final int flushEvery;
+    private final Semaphore streamSlots;
+
+    public OrderNdjsonStreamingService(
+            OrderRepository orderRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.orders.stream.fetch-size:500}") int fetchSize,
+            @Value("${app.orders.stream.flush-every:500}") int flushEvery,
+            @Value("${app.orders.stream.max-concurrent:4}") int maxConcurrentStreams) {
+        this.orderRepository = orderRepository;
+        this.lineWriter = objectMapper.writer()
+                .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = Math.max(1, fetchSize);
+        this.flushEvery = Math.max(1, flushEvery);
+        this.streamSlots = new Semaphore(Math.max(1, maxConcurrentStreams));
+    }
+
+    public StreamSlot reserveSlot() {
+
+        if (!streamSlots.tryAcquire())
+            throw new TooManyRequestsException("Too many order streams in progress, retry later", "ORDER_STREAM_LIMIT");
+
+        return new StreamSlot(streamSlots);
+    }
+
+    /**
+     * Streams every order matching {@code spec}, newest first, and returns the number of lines written.
+     */
+    public long streamOrders(Specification<Order> spec, Function<OrderListView, OrderResponse> mapper, OutputStream out) throws IOException {
+        try {
+            Long written = readOnlyTransaction.execute(status -> writeOrders(spec, mapper, out));
+            return written == null ? 0 : written;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private long writeOrders(Specification<Order> spec, Function<OrderListView, OrderResponse> mapper, OutputStream out) {
+
+        long written = 0;
+
+        try (Stream<OrderListView> orders = orderRepository.streamListViews(spec, NEWEST_FIRST, fetchSize);
+             JsonGenerator generator = lineWriter.createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+
+            Iterator<OrderListView> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                lineWriter.writeValue(generator, mapper.apply(iterator.next()));
+
+                if (++written % flushEvery == 0) {
+                    generator.flush();
+                }
+            }
+
+            if (written > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        } catch (IOException ex) {
+            log.warn("Order stream aborted after {} rows: {}", written, ex.getMessage());
+            throw new UncheckedIOException(ex);
+        }
+
+        return written;
+    }
+
+    /**
+     * A reserved stream slot. The stream marks it started and closes it when done; a slot whose stream never
+     * started (the async task was rejected or timed out while queued) is given back with {@link #abandon()},
+     * and a stream cannot start on an abandoned slot.
+     */
+    public static final class StreamSlot implements AutoCloseable {
+
+        private static final int RESERVED = 0;
+        private static final int STARTED = 1;
+        private static final int RELEASED = 2;
+
+        private final Semaphore slots;
+        private final AtomicInteger state = new AtomicInteger(RESERVED);
+
+        private StreamSlot(Semaphore slots) {
+            this.slots = slots;
+        }
+
+        public boolean start() {
+            return state.compareAndSet(RESERVED, STARTED);
+        }
+
+        public void abandon() {
+            if (state.compareAndSet(RESERVED, RELEASED)) {
+                slots.release();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (state.getAndSet(RELEASED) != RELEASED) {
+                slots.release();
+            }
+        }
+    }
+}
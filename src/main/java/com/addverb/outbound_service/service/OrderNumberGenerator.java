@@ -0,0 +1,69 @@
+package com.addverb.outbound_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Hands out order numbers from blocks reserved on the {@code order_number_seq} database sequence.
+ * <p>
+ * One {@code NEXT VALUE FOR} reserves a whole block of {@code INCREMENT BY} numbers for this instance, so numbers
+ * are unique across instances without a lookup per order. Numbers left in a block when the instance stops are
+ * skipped, never reused. The sequence comes from {@code db/scripts/003_order_number_sequence.sql}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderNumberGenerator {
+
+    private static final String SEQUENCE_NAME = "order_number_seq";
+    private static final String ORDER_NUMBER_FORMAT = "ORD-%010d";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private long blockSize;
+    private long next;
+    private long blockEnd;
+
+    public synchronized String nextOrderNumber() {
+
+        if (next >= blockEnd) {
+            reserveBlock();
+        }
+
+        return String.format(ORDER_NUMBER_FORMAT, next++);
+    }
+
+    private void reserveBlock() {
+
+        if (blockSize == 0) {
+            blockSize = sequenceIncrement();
+        }
+
+        Long blockStart = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + SEQUENCE_NAME, Long.class);
+        if (blockStart == null) {
+            throw new IllegalStateException("Sequence " + SEQUENCE_NAME + " returned no value");
+        }
+
+        next = blockStart;
+        blockEnd = blockStart + blockSize;
+        log.debug("Reserved order numbers {}..{}", next, blockEnd - 1);
+    }
+
+    private long sequenceIncrement() {
+
+        Long increment = jdbcTemplate.query(
+                "SELECT CAST(increment AS BIGINT) FROM sys.sequences WHERE name = ?",
+                rs -> rs.next() ? rs.getLong(1) : null,
+                SEQUENCE_NAME
+        );
+
+        if (increment == null) {
+            throw new IllegalStateException("Sequence " + SEQUENCE_NAME
+                    + " is missing; run db/scripts/003_order_number_sequence.sql");
+        }
+        return increment;
+    }
+}
@@ -1,9 +1,13 @@
 package com.addverb.outbound_service.service;
 
 import com.addverb.outbound_service.dto.*;
+import com.addverb.outbound_service.enums.AllocationLockingMode;
 import com.addverb.outbound_service.enums.OrderExportDateFilter;
 import com.addverb.outbound_service.enums.OrderStatus;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,10 +25,33 @@ public interface OrderService {
             LocalDateTime toDate
     );
 
+    CursorPagedResponse<OrderResponse> getOrdersByCursor(
+            String cursor,
+            int size,
+            OrderStatus status,
+            String skuCode,
+            LocalDateTime fromDate,
+            LocalDateTime toDate
+    );
+
+    void streamOrders(
+            OrderStatus status,
+            String skuCode,
+            LocalDateTime fromDate,
+            LocalDateTime toDate,
+            OutputStream out
+    ) throws IOException;
+
     AllocationResponse allocateOrder(String orderNumber);
 
+    Mono<AllocationResponse> allocateOrderReactive(String orderNumber);
+
     BulkAllocationResponse allocateOrdersBulk(List<String> orderNumbers);
 
+    BulkAllocationResponse allocateOrdersBulk(List<String> orderNumbers, AllocationLockingMode lockingMode);
+
+    AllocationSimulationResponse simulateAllocation(AllocationSimulationRequest request);
+
     DashboardSummaryResponse getDashboardSummary();
 
     OrderDetailsResponse getOrderDetails(Long orderId);
@@ -1,30 +1,53 @@
 package com.addverb.outbound_service.service;
 
+import com.addverb.outbound_service.allocation.AllocationDemand;
+import com.addverb.outbound_service.allocation.AllocationPlan;
+import com.addverb.outbound_service.allocation.FefoAllocationEngine;
 import com.addverb.outbound_service.dto.*;
 import com.addverb.outbound_service.entity.Order;
 import com.addverb.outbound_service.entity.OrderAllocation;
+import com.addverb.outbound_service.enums.AllocationExecutionMode;
+import com.addverb.outbound_service.enums.AllocationLockingMode;
 import com.addverb.outbound_service.enums.OrderExportDateFilter;
 import com.addverb.outbound_service.enums.OrderStatus;
 import com.addverb.outbound_service.exception.AllocationException;
 import com.addverb.outbound_service.exception.BusinessException;
+import com.addverb.outbound_service.exception.InventoryRejectedException;
 import com.addverb.outbound_service.exception.InventoryServiceException;
+import com.addverb.outbound_service.exception.InventoryUnavailableException;
 import com.addverb.outbound_service.exception.OrderNotFoundException;
 import com.addverb.outbound_service.inventory.InventoryBatchResponse;
+import com.addverb.outbound_service.inventory.InventoryBatchesBySkuMrpResponse;
 import com.addverb.outbound_service.inventory.InventoryClient;
 import com.addverb.outbound_service.inventory.InventoryDeductRequest;
+import com.addverb.outbound_service.inventory.InventoryDeductionCompactor;
+import com.addverb.outbound_service.inventory.InventoryLookupCoalescer;
+import com.addverb.outbound_service.inventory.InventorySnapshotCache;
 import com.addverb.outbound_service.inventory.InventoryOrderDeductPlan;
 import com.addverb.outbound_service.repository.OrderAllocationRepository;
 import com.addverb.outbound_service.repository.OrderRepository;
+import com.addverb.outbound_service.repository.OrderWaveRepository;
+import com.addverb.outbound_service.repository.projection.OrderDemandView;
+import com.addverb.outbound_service.repository.projection.OrderListView;
+import com.addverb.outbound_service.specification.OrderKeysetCursor;
 import com.addverb.outbound_service.specification.OrderSpecification;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -36,6 +59,7 @@ import static com.addverb.outbound_service.enums.OrderStatus.PENDING;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
@@ -43,12 +67,28 @@ public class OrderServiceImpl implements OrderService {
     private final OrderAllocationRepository allocationRepository;
     private final PlatformTransactionManager transactionManager;
     private final OrderExcelExportService orderExcelExportService;
+    private final FefoAllocationEngine allocationEngine;
+    private final OrderWaveRepository orderWaveRepository;
+    private final InventorySnapshotCache inventorySnapshotCache;
+    private final InventoryLookupCoalescer inventoryLookupCoalescer;
+    private final InventoryDeductionOutboxService deductionOutbox;
+    private final OrderNdjsonStreamingService orderNdjsonStreamingService;
+    private final OrderNumberGenerator orderNumberGenerator;
+
+    @Value("${app.allocation.locking-mode:PESSIMISTIC}")
+    private AllocationLockingMode lockingMode;
+
+    @Value("${app.allocation.optimistic.max-attempts:3}")
+    private int optimisticMaxAttempts;
+
+    @Value("${app.allocation.optimistic.backoff-ms:20}")
+    private long optimisticBackoffMillis;
 
     @Override
     public OrderResponse createOrder(CreateOrderRequest request) {
 
         Order order = Order.builder()
-                .orderNumber(generateOrderNumber())
+                .orderNumber(orderNumberGenerator.nextOrderNumber())
                 .customerName(request.getCustomerName())
                 .address(request.getAddress())
                 .skuCode(request.getSkuCode())
@@ -66,6 +106,7 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<OrderResponse> getOrders(
             int page,
             int size,
@@ -90,7 +131,7 @@ public class OrderServiceImpl implements OrderService {
         boolean unpagedRequest = size <= 0 || (page == 0 && size == 10);
 
         if (unpagedRequest) {
-            List<OrderResponse> allContent = orderRepository.findAll(spec, createdAtDesc)
+            List<OrderResponse> allContent = orderRepository.findListViews(spec, createdAtDesc, 0, -1)
                     .stream()
                     .map(this::mapToResponse)
                     .toList();
@@ -105,7 +146,11 @@ public class OrderServiceImpl implements OrderService {
 
         Pageable pageable = PageRequest.of(page, size, createdAtDesc);
 
-        Page<Order> orderPage = orderRepository.findAll(spec, pageable);
+        Page<OrderListView> orderPage = PageableExecutionUtils.getPage(
+                orderRepository.findListViews(spec, createdAtDesc, pageable.getOffset(), pageable.getPageSize()),
+                pageable,
+                () -> orderRepository.count(spec)
+        );
 
         List<OrderResponse> content = orderPage.getContent()
                 .stream()
@@ -120,14 +165,78 @@ public class OrderServiceImpl implements OrderService {
                 .build();
     }
 
-    private String generateOrderNumber() {
-//        return "ORD-" + UUID.randomUUID().toString().substring(0, 8);
-        String orderNumber;
-        do {
-            orderNumber = "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        } while (orderRepository.findByOrderNumber(orderNumber).isPresent());
+    /**
+     * Keyset pagination on {@code (createdAt, id)}: each page seeks past the previous page's last row instead of
+     * skipping an offset, and no count query is issued, so every page costs the same regardless of depth.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPagedResponse<OrderResponse> getOrdersByCursor(
+            String cursor,
+            int size,
+            OrderStatus status,
+            String skuCode,
+            LocalDateTime fromDate,
+            LocalDateTime toDate
+    ) {
+
+        if ( fromDate != null && toDate != null && fromDate.isAfter(toDate) )
+            throw new BusinessException("From Date must be less than To Date");
+
+        Specification<Order> spec = Specification
+                .where(OrderSpecification.hasStatus(status))
+                .and(OrderSpecification.hasSkuCode(skuCode))
+                .and(OrderSpecification.createdAfter(fromDate))
+                .and(OrderSpecification.createdBefore(toDate))
+                .and(OrderSpecification.seekAfter(OrderKeysetCursor.decode(cursor)));
+
+        Sort keysetOrder = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+        List<OrderListView> rows = orderRepository.findListViews(spec, keysetOrder, 0, size + 1);
+
+        boolean hasMore = rows.size() > size;
+        List<OrderListView> page = hasMore ? rows.subList(0, size) : rows;
+
+        return CursorPagedResponse.<OrderResponse>builder()
+                .content(page.stream().map(this::mapToResponse).toList())
+                .size(page.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? OrderKeysetCursor.of(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
+
+    @Override
+    public void streamOrders(
+            OrderStatus status,
+            String skuCode,
+            LocalDateTime fromDate,
+            LocalDateTime toDate,
+            OutputStream out
+    ) throws IOException {
+
+        Specification<Order> spec = Specification
+                .where(OrderSpecification.hasStatus(status))
+                .and(OrderSpecification.hasSkuCode(skuCode))
+                .and(OrderSpecification.createdAfter(fromDate))
+                .and(OrderSpecification.createdBefore(toDate));
+
+        long written = orderNdjsonStreamingService.streamOrders(spec, this::mapToResponse, out);
+        log.info("Streamed {} orders", written);
+    }
+
+    private OrderResponse mapToResponse(OrderListView order) {
 
-        return orderNumber;
+        return OrderResponse.builder()
+                .orderNumber(order.orderNumber())
+                .customerName(order.customerName())
+                .address(order.address())
+                .skuCode(order.skuCode())
+                .mrp(order.mrp())
+                .requestedQty(order.requestedQty())
+                .allocatedQty(order.allocatedQty())
+                .status(order.status())
+                .createdAt(order.createdAt())
+                .build();
     }
 
     private OrderResponse mapToResponse(Order order) {
@@ -154,6 +263,12 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public BulkAllocationResponse allocateOrdersBulk(List<String> orderNumbers) {
+        return allocateOrdersBulk(orderNumbers, lockingMode);
+    }
+
+    @Override
+    @Transactional
+    public BulkAllocationResponse allocateOrdersBulk(List<String> orderNumbers, AllocationLockingMode lockingMode) {
 
         if (orderNumbers == null || orderNumbers.isEmpty()) {
             return BulkAllocationResponse.builder()
@@ -183,16 +298,12 @@ public class OrderServiceImpl implements OrderService {
         }
 
         if (normalizedOrderNumbers.isEmpty()) {
-            int failureCount = results.size();
-            return BulkAllocationResponse.builder()
-                    .totalOrders(results.size())
-                    .successCount(0)
-                    .failureCount(failureCount)
-                    .results(results)
-                    .build();
+            return buildBulkResponse(results, orderNumbers);
         }
 
-        List<Order> existingOrders = orderRepository.findByOrderNumberInForUpdate(new java.util.ArrayList<>(normalizedOrderNumbers));
+        List<Order> existingOrders = lockingMode == AllocationLockingMode.OPTIMISTIC
+                ? orderRepository.findAllByOrderNumbers(normalizedOrderNumbers)
+                : orderRepository.findAllByOrderNumbersForUpdate(normalizedOrderNumbers);
 
         Map<String, Order> orderMap = existingOrders.stream()
                 .collect(Collectors.toMap(Order::getOrderNumber, order -> order));
@@ -236,210 +347,507 @@ public class OrderServiceImpl implements OrderService {
         }
 
         if (allocatableOrders.isEmpty()) {
-            int successCount = (int) results.stream().filter(BulkOrderAllocationResult::isSuccess).count();
-            int failureCount = results.size() - successCount;
-            return BulkAllocationResponse.builder()
-                    .totalOrders(results.size())
-                    .successCount(successCount)
-                    .failureCount(failureCount)
-                    .results(results)
-                    .build();
+            return buildBulkResponse(results, orderNumbers);
         }
 
         List<InventoryClient.OrderInventoryQuery> queries = allocatableOrders.stream()
                 .map(order -> new InventoryClient.OrderInventoryQuery(order.getSkuCode(), order.getMrp()))
                 .toList();
 
-        Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp;
-        try {
-            inventoryBySkuMrp = inventoryClient.getBatchesBySkuAndMrpBulk(queries);
-        } catch (InventoryServiceException ex) {
-            for (Order order : allocatableOrders) {
-                results.add(BulkOrderAllocationResult.builder()
-                        .orderNumber(order.getOrderNumber())
-                        .success(false)
-                        .message("Allocation failed for order " + order.getOrderNumber() + ": " + ex.getMessage())
-                        .build());
+        // With the outbox, deductions reach /save asynchronously: plan against live stock minus undispatched rows
+        boolean useOutbox = deductionOutbox.isEnabled();
+        boolean useSnapshotCache = !useOutbox && inventorySnapshotCache.isEnabled();
+        WavePlanning planning;
+        WaveClaim waveClaim;
+        InventoryDeductionCompactor.CompactedDeduction compactedDeduction;
+
+        while (true) {
+
+            Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp;
+            try {
+                if (useOutbox) {
+                    // Other waves' outbox rows are only visible once committed; wait for those planning the same keys
+                    deductionOutbox.lockForPlanning(queries.stream()
+                            .map(query -> InventoryClient.skuMrpKey(query.skuCode(), query.mrp()))
+                            .toList());
+                }
+
+                LocalDateTime fetchStartedAt = LocalDateTime.now();
+                inventoryBySkuMrp = useSnapshotCache
+                        ? inventorySnapshotCache.getBatchesBySkuAndMrpBulk(queries)
+                        : inventoryClient.getBatchesBySkuAndMrpBulk(queries);
+
+                if (useOutbox) {
+                    inventoryBySkuMrp = deductionOutbox.withUnreflectedDeductions(
+                            inventoryBySkuMrp,
+                            allocatableOrders.stream().map(Order::getSkuCode).toList(),
+                            fetchStartedAt);
+                }
+            } catch (InventoryServiceException ex) {
+                for (Order order : allocatableOrders) {
+                    results.add(BulkOrderAllocationResult.builder()
+                            .orderNumber(order.getOrderNumber())
+                            .success(false)
+                            .message("Allocation failed for order " + order.getOrderNumber() + ": " + ex.getMessage())
+                            .build());
+                }
+
+                return buildBulkResponse(results, orderNumbers);
+
             }
 
-            int successCount = (int) results.stream().filter(BulkOrderAllocationResult::isSuccess).count();
-            int failureCount = results.size() - successCount;
-            return BulkAllocationResponse.builder()
-                    .totalOrders(results.size())
-                    .successCount(successCount)
-                    .failureCount(failureCount)
-                    .results(results)
-                    .build();
+            planning = planWave(allocatableOrders, inventoryBySkuMrp);
+
+            if (planning.successfulPlans().isEmpty()) {
+                results.addAll(planning.failures());
+                return buildBulkResponse(results, orderNumbers);
+            }
+
+            // Claim the orders before touching stock, so a wave that loses an order never deducts for it
+            WaveClaim claim = claimWave(planning.successfulPlans(), lockingMode);
+            List<OrderAllocationPlan> claimedPlans = claim.claimedPlans();
+
+            if (claimedPlans.isEmpty()) {
+                results.addAll(planning.failures());
+                results.addAll(claim.failures());
+                return buildBulkResponse(results, orderNumbers);
+            }
 
+            // Orders of one wave often draw from the same batch; /save gets one item per batch
+            compactedDeduction = InventoryDeductionCompactor.compact(claimedPlans.stream()
+                    .map(plan -> InventoryOrderDeductPlan.builder()
+                            .orderNumber(plan.order().getOrderNumber())
+                            .skuCode(plan.order().getSkuCode())
+                            .mrp(plan.order().getMrp())
+                            .allocations(plan.deductRequests())
+                            .build())
+                    .toList());
+            List<InventoryDeductRequest> deductAllocations = compactedDeduction.items();
+            log.debug("Bulk deduction compacted from {} to {} items", compactedDeduction.originalItemCount(), compactedDeduction.compactedItemCount());
+
+            try {
+                if (useOutbox) {
+                    deductionOutbox.enqueue(deductAllocations);
+                } else {
+                    // One key per attempt: a re-planned attempt carries different items
+                    inventoryClient.deductInventoryBulk(deductAllocations, UUID.randomUUID().toString());
+                }
+                inventorySnapshotCache.recordDeductions(deductAllocations);
+                waveClaim = claim;
+                break;
+            } catch (RuntimeException ex) {
+                releaseWave(claim);
+
+                if (!(ex instanceof InventoryServiceException))
+                    throw ex;
+
+                if (useSnapshotCache) {
+                    inventorySnapshotCache.invalidate(queries);
+
+                    // Only an explicit rejection is known not to have been applied; after a timeout or 5xx the
+                    // deduction may have gone through, and re-planning against live stock would deduct it twice
+                    if (ex instanceof InventoryRejectedException) {
+                        log.warn("Bulk deduction rejected for a cached plan, retrying with live inventory: {}", ex.getMessage());
+                        useSnapshotCache = false;
+                        continue;
+                    }
+                }
+
+                results.addAll(planning.failures());
+                results.addAll(claim.failures());
+                for (OrderAllocationPlan plan : claimedPlans) {
+                    results.add(BulkOrderAllocationResult.builder()
+                            .orderNumber(plan.order().getOrderNumber())
+                            .success(false)
+                            .message("Allocation failed for order " + plan.order().getOrderNumber() + ": " + ex.getMessage())
+                            .build());
+                }
+
+                return withDeductionStats(buildBulkResponse(results, orderNumbers), compactedDeduction);
+            }
         }
 
-        Map<String, Integer> availableByBatchKey = new HashMap<>();
+        results.addAll(planning.failures());
+        results.addAll(waveClaim.failures());
+
+        List<OrderAllocation> waveAllocationLines = new java.util.ArrayList<>();
+
+        for (int i = 0; i < waveClaim.waveUpdates().size(); i++) {
+            OrderAllocationPlan plan = waveClaim.wavePlans().get(i);
+            OrderWaveRepository.OrderTotalsUpdate update = waveClaim.waveUpdates().get(i);
+
+            waveAllocationLines.addAll(buildAllocationLines(plan.order(), plan));
+            results.add(BulkOrderAllocationResult.builder()
+                    .orderNumber(plan.order().getOrderNumber())
+                    .success(true)
+                    .message("Allocation completed")
+                    .allocation(AllocationResponse.builder()
+                            .orderNumber(plan.order().getOrderNumber())
+                            .requestedQty(update.requestedQty())
+                            .allocatedQty(update.allocatedQty())
+                            .status(update.status())
+                            .allocations(plan.allocationDetails())
+                            .build())
+                    .build());
+        }
 
-        List<OrderAllocationPlan> successfulPlans = new java.util.ArrayList<>();
+        for (ClaimedAllocation retried : waveClaim.retriedClaims()) {
+            results.add(BulkOrderAllocationResult.builder()
+                    .orderNumber(retried.response().getOrderNumber())
+                    .success(true)
+                    .message("Allocation completed")
+                    .allocation(retried.response())
+                    .build());
+        }
 
-        for (Order order : allocatableOrders) {
+        allocationRepository.saveAll(waveAllocationLines);
 
-            String skuMrpKey = buildSkuMrpKey(order.getSkuCode(), order.getMrp());
+        return withDeductionStats(buildBulkResponse(results, orderNumbers), compactedDeduction);
+    }
 
-            List<InventoryBatchResponse> batches = inventoryBySkuMrp.getOrDefault(
-                    skuMrpKey,
-                    java.util.Collections.emptyList()
-            );
+    /**
+     * Writes the planned totals of a wave with one version-checked UPDATE inside the wave's transaction. In
+     * OPTIMISTIC mode an order that lost the version check is re-read and claimed on its own (committed
+     * separately); in PESSIMISTIC mode, or when the retry gives up, it fails before any stock is deducted.
+     */
+    private WaveClaim claimWave(List<OrderAllocationPlan> plans, AllocationLockingMode lockingMode) {
 
-            List<InventoryBatchResponse> validBatches = batches.stream()
-//                    .filter(Objects::nonNull)
-//                    .filter(batch -> batch.getBatchNo() != null && !batch.getBatchNo().isBlank())
-//                    .filter(batch -> batch.getExpiryDate() != null && batch.getExpiryDate().isAfter(java.time.LocalDate.now()))
-//                    .filter(batch -> batch.getAvailableQty() != null && batch.getAvailableQty() > 0)
-                    .sorted(Comparator.comparing(InventoryBatchResponse::getExpiryDate))
-                    .toList();
+        LocalDateTime waveUpdatedAt = LocalDateTime.now();
+        List<OrderWaveRepository.OrderTotalsUpdate> updates = plans.stream()
+                .map(plan -> OrderWaveRepository.OrderTotalsUpdate.of(plan.order(), plan.totalAllocatedNow(), waveUpdatedAt))
+                .toList();
 
-            if (validBatches.isEmpty()) {
-                results.add(BulkOrderAllocationResult.builder()
-                        .orderNumber(order.getOrderNumber())
+        boolean[] applied = orderWaveRepository.updateAllocationTotals(updates);
+
+        List<OrderAllocationPlan> wavePlans = new ArrayList<>();
+        List<OrderWaveRepository.OrderTotalsUpdate> waveUpdates = new ArrayList<>();
+        List<OrderAllocationPlan> retriedPlans = new ArrayList<>();
+        List<ClaimedAllocation> retriedClaims = new ArrayList<>();
+        List<BulkOrderAllocationResult> failures = new ArrayList<>();
+
+        for (int i = 0; i < plans.size(); i++) {
+            OrderAllocationPlan plan = plans.get(i);
+
+            if (applied[i]) {
+                wavePlans.add(plan);
+                waveUpdates.add(updates.get(i));
+                continue;
+            }
+
+            try {
+                if (lockingMode != AllocationLockingMode.OPTIMISTIC)
+                    throw new AllocationException("Order was modified concurrently");
+
+                retriedClaims.add(claimAllocationWithRetry(plan));
+                retriedPlans.add(plan);
+            } catch (AllocationException ex) {
+                failures.add(BulkOrderAllocationResult.builder()
+                        .orderNumber(plan.order().getOrderNumber())
                         .success(false)
-                        .message("Allocation failed for order " + order.getOrderNumber() + ": No valid inventory available")
+                        .message("Allocation failed for order " + plan.order().getOrderNumber() + ": " + ex.getMessage())
                         .build());
-                continue;
             }
+        }
 
-            int remainingQty = order.getRequestedQty() - order.getAllocatedQty();
-            int totalAllocatedNow = 0;
+        return new WaveClaim(wavePlans, waveUpdates, retriedPlans, retriedClaims, failures);
+    }
 
-            List<BatchAllocationDetail> allocationDetails = new java.util.ArrayList<>();
+    /**
+     * Undoes a wave claim after its deduction was rejected: the in-transaction claims are restored to the
+     * entities' original totals and versions, the separately committed ones are released.
+     */
+    private void releaseWave(WaveClaim claim) {
+        orderWaveRepository.restoreAllocationTotals(claim.wavePlans().stream().map(OrderAllocationPlan::order).toList());
+        claim.retriedClaims().forEach(this::releaseClaim);
+    }
 
-            for (InventoryBatchResponse batch : validBatches) {
+    private BulkAllocationResponse withDeductionStats(BulkAllocationResponse response, InventoryDeductionCompactor.CompactedDeduction compactedDeduction) {
+        response.setDeductionItemsBeforeCompaction(compactedDeduction.originalItemCount());
+        response.setDeductionItemsSent(compactedDeduction.compactedItemCount());
+        return response;
+    }
 
-                if (remainingQty <= 0)
-                    break;
+    @Override
+    public AllocationSimulationResponse simulateAllocation(AllocationSimulationRequest request) {
 
-                String batchKey = buildBatchKey(order.getSkuCode(), order.getMrp(), batch.getBatchNo());
-                int available = availableByBatchKey.getOrDefault(batchKey, batch.getQuantity());
+        Set<String> normalizedOrderNumbers = request.getOrderNumbers().stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(orderNumber -> !orderNumber.isBlank())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
 
-                if (available <= 0)
-                    continue;
+        // The views are loaded in their own short read so no connection is held across the /available call
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
 
-                int allocateQty = Math.min(remainingQty, available);
+        Map<String, OrderDemandView> viewMap = readOnly.execute(status ->
+                orderRepository.findAllDemandViewsByOrderNumbers(normalizedOrderNumbers)
+                        .stream()
+                        .collect(Collectors.toMap(OrderDemandView::orderNumber, view -> view)));
 
-                allocationDetails.add(
-                        BatchAllocationDetail.builder()
-                                .batchNo(batch.getBatchNo())
-                                .expiryDate(batch.getExpiryDate())
-                                .mrp(batch.getMrp())
-                                .allocatedQty(allocateQty)
-                                .build()
-                );
+        List<BulkOrderAllocationResult> results = new ArrayList<>();
+        List<OrderDemandView> plannable = new ArrayList<>();
 
-                availableByBatchKey.put(batchKey, available - allocateQty);
+        for (String orderNumber : normalizedOrderNumbers) {
 
-                remainingQty -= allocateQty;
-                totalAllocatedNow += allocateQty;
+            OrderDemandView view = viewMap.get(orderNumber);
+            String failureReason = null;
+
+            if (view == null) {
+                failureReason = "Order not found";
+            } else if (view.status() == OrderStatus.COMPLETED) {
+                failureReason = "Order already completed";
+            } else if (view.requestedQty() - view.allocatedQty() <= 0) {
+                failureReason = "Order already fully allocated";
             }
 
-            if (totalAllocatedNow == 0) {
+            if (failureReason != null) {
                 results.add(BulkOrderAllocationResult.builder()
-                        .orderNumber(order.getOrderNumber())
+                        .orderNumber(orderNumber)
                         .success(false)
-                        .message("Allocation failed for order " + order.getOrderNumber() + ": Insufficient stock for allocation")
+                        .message("Allocation failed for order " + orderNumber + ": " + failureReason)
                         .build());
                 continue;
             }
 
-            List<InventoryDeductRequest> deductRequests =
-                    allocationDetails.stream()
-                            .map(detail -> InventoryDeductRequest.builder()
-                                    .sku(order.getSkuCode())
-                                    .mrp(order.getMrp())
-                                    .batchNo(detail.getBatchNo())
-                                    .quantity(detail.getAllocatedQty())
-                                    .status(null)
-                                    .expiryDate(null)
-                                    .build())
-                            .toList();
-
-            successfulPlans.add(new OrderAllocationPlan(order, allocationDetails, deductRequests, totalAllocatedNow));
+            plannable.add(view);
         }
 
-        if (successfulPlans.isEmpty()) {
-            int successCount = (int) results.stream().filter(BulkOrderAllocationResult::isSuccess).count();
-            int failureCount = results.size() - successCount;
-            return BulkAllocationResponse.builder()
-                    .totalOrders(results.size())
-                    .successCount(successCount)
-                    .failureCount(failureCount)
-                    .results(results)
-                    .build();
+        String snapshotSource = "UPLOADED";
+        Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp = Collections.emptyMap();
+
+        if (request.getInventorySnapshot() != null) {
+            inventoryBySkuMrp = indexSnapshot(request.getInventorySnapshot());
+        } else if (!plannable.isEmpty()) {
+            List<InventoryClient.OrderInventoryQuery> queries = plannable.stream()
+                    .map(view -> new InventoryClient.OrderInventoryQuery(view.skuCode(), view.mrp()))
+                    .toList();
+            try {
+                inventoryBySkuMrp = inventorySnapshotCache.getBatchesBySkuAndMrpBulk(queries);
+                snapshotSource = "LIVE";
+            } catch (InventoryUnavailableException | InventoryServiceException ex) {
+                // A what-if run may plan against stale stock; the response says so through snapshotSource
+                log.warn("Simulating allocation against last known inventory: {}", ex.getMessage());
+                inventoryBySkuMrp = inventorySnapshotCache.getLastKnownBatches(queries);
+                snapshotSource = "LAST_KNOWN";
+            }
+        } else {
+            snapshotSource = "LIVE";
         }
 
-//        List<InventoryOrderDeductPlan> deductPlans = successfulPlans.stream()
-//                .map(plan -> InventoryOrderDeductPlan.builder()
-////                        .orderNumber(plan.order().getOrderNumber())
-//                        .skuCode(plan.order().getSkuCode())
-//                        .mrp(plan.order().getMrp())
-////                        .requestedQty(plan.order().getRequestedQty())
-////                        .alreadyAllocatedQty(plan.order().getAllocatedQty())
-//                        .allocations(plan.deductRequests())
-//                        .build())
-//                .toList();
-
-        List<InventoryDeductRequest> deductAllocations = successfulPlans.stream()
-                .flatMap(plan -> plan.deductRequests().stream())
+        List<AllocationDemand> demands = plannable.stream()
+                .map(view -> new AllocationDemand(view.skuCode(), view.mrp(), view.requestedQty() - view.allocatedQty()))
                 .toList();
 
-        try {
-            inventoryClient.deductInventoryBulk(deductAllocations);
-        } catch (InventoryServiceException ex) {
-            for (OrderAllocationPlan plan : successfulPlans) {
+        long planningStart = System.nanoTime();
+        List<AllocationPlan> plans = allocationEngine.plan(demands, inventoryBySkuMrp);
+        long planningMillis = (System.nanoTime() - planningStart) / 1_000_000;
+
+        int completedCount = 0;
+        int partialCount = 0;
+        long requestedQty = 0;
+        long allocatableQty = 0;
+
+        for (int i = 0; i < plannable.size(); i++) {
+
+            OrderDemandView view = plannable.get(i);
+            AllocationPlan plan = plans.get(i);
+            requestedQty += view.requestedQty() - view.allocatedQty();
+
+            if (!plan.isAllocated()) {
                 results.add(BulkOrderAllocationResult.builder()
-                        .orderNumber(plan.order().getOrderNumber())
+                        .orderNumber(view.orderNumber())
                         .success(false)
-                        .message("Allocation failed for order " + plan.order().getOrderNumber() + ": " + ex.getMessage())
+                        .message("Allocation failed for order " + view.orderNumber() + ": " + plan.failureReason())
                         .build());
+                continue;
             }
 
-            int successCount = (int) results.stream().filter(BulkOrderAllocationResult::isSuccess).count();
-            int failureCount = results.size() - successCount;
+            int totalAllocated = view.allocatedQty() + plan.allocatedQty();
+            OrderStatus projectedStatus = totalAllocated == view.requestedQty()
+                    ? OrderStatus.COMPLETED
+                    : OrderStatus.PARTIAL;
 
-            return BulkAllocationResponse.builder()
-                    .totalOrders(results.size())
-                    .successCount(successCount)
-                    .failureCount(failureCount)
-                    .results(results)
-                    .build();
+            if (projectedStatus == OrderStatus.COMPLETED) {
+                completedCount++;
+            } else {
+                partialCount++;
+            }
+            allocatableQty += plan.allocatedQty();
+
+            results.add(BulkOrderAllocationResult.builder()
+                    .orderNumber(view.orderNumber())
+                    .success(true)
+                    .message("Allocation simulated")
+                    .allocation(AllocationResponse.builder()
+                            .orderNumber(view.orderNumber())
+                            .requestedQty(view.requestedQty())
+                            .allocatedQty(totalAllocated)
+                            .status(projectedStatus)
+                            .allocations(plan.allocations())
+                            .build())
+                    .build());
         }
 
-        for (OrderAllocationPlan plan : successfulPlans) {
-            try {
-                AllocationResponse allocation = persistAllocationForOrder(plan);
-                results.add(BulkOrderAllocationResult.builder()
-                        .orderNumber(plan.order().getOrderNumber())
-                        .success(true)
-                        .message("Allocation completed")
-                        .allocation(allocation)
-                        .build());
-            } catch (Exception ex) {
-                results.add(BulkOrderAllocationResult.builder()
-                        .orderNumber(plan.order().getOrderNumber())
+        return AllocationSimulationResponse.builder()
+                .snapshotSource(snapshotSource)
+                .totalOrders(results.size())
+                .completedCount(completedCount)
+                .partialCount(partialCount)
+                .failureCount(results.size() - completedCount - partialCount)
+                .requestedQty(requestedQty)
+                .allocatableQty(allocatableQty)
+                .planningMillis(planningMillis)
+                .results(request.isIncludeResults()
+                        ? buildBulkResponse(results, request.getOrderNumbers()).getResults()
+                        : null)
+                .build();
+    }
+
+    private Map<String, List<InventoryBatchResponse>> indexSnapshot(List<InventoryBatchesBySkuMrpResponse> snapshot) {
+
+        Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp = new HashMap<>();
+
+        for (InventoryBatchesBySkuMrpResponse entry : snapshot) {
+            if (entry == null || entry.getSku() == null || entry.getBatches() == null) {
+                continue;
+            }
+            inventoryBySkuMrp
+                    .computeIfAbsent(InventoryClient.skuMrpKey(entry.getSku(), entry.getMrp()), key -> new ArrayList<>())
+                    .addAll(entry.getBatches());
+        }
+
+        return inventoryBySkuMrp;
+    }
+
+    private WavePlanning planWave(List<Order> allocatableOrders, Map<String, List<InventoryBatchResponse>> inventoryBySkuMrp) {
+
+        List<AllocationDemand> demands = allocatableOrders.stream()
+                .map(order -> new AllocationDemand(order.getSkuCode(), order.getMrp(), order.getRequestedQty() - order.getAllocatedQty()))
+                .toList();
+
+        List<AllocationPlan> plans = allocationEngine.plan(demands, inventoryBySkuMrp);
+
+        List<OrderAllocationPlan> successfulPlans = new java.util.ArrayList<>();
+        List<BulkOrderAllocationResult> failures = new java.util.ArrayList<>();
+
+        for (int i = 0; i < allocatableOrders.size(); i++) {
+
+            Order order = allocatableOrders.get(i);
+            AllocationPlan plan = plans.get(i);
+
+            if (!plan.isAllocated()) {
+                failures.add(BulkOrderAllocationResult.builder()
+                        .orderNumber(order.getOrderNumber())
                         .success(false)
-                        .message("Allocation failed for order " + plan.order().getOrderNumber() + ": " + ex.getMessage())
+                        .message("Allocation failed for order " + order.getOrderNumber() + ": " + plan.failureReason())
                         .build());
+                continue;
             }
+
+            successfulPlans.add(toOrderAllocationPlan(order, plan));
         }
 
-        int successCount = (int) results.stream().filter(BulkOrderAllocationResult::isSuccess).count();
-        int failureCount = results.size() - successCount;
+        return new WavePlanning(successfulPlans, failures);
+    }
+
+    private OrderAllocationPlan toOrderAllocationPlan(Order order, AllocationPlan plan) {
+
+        List<InventoryDeductRequest> deductRequests =
+                plan.allocations().stream()
+                        .map(detail -> InventoryDeductRequest.builder()
+                                .sku(order.getSkuCode())
+                                .mrp(order.getMrp())
+                                .batchNo(detail.getBatchNo())
+                                .quantity(detail.getAllocatedQty())
+                                .status(null)
+                                .expiryDate(null)
+                                .build())
+                        .toList();
+
+        return new OrderAllocationPlan(order, plan.allocations(), deductRequests, plan.allocatedQty());
+    }
+
+    private BulkAllocationResponse buildBulkResponse(List<BulkOrderAllocationResult> results, List<String> orderNumbers) {
+
+        Map<String, Integer> inputPosition = new HashMap<>();
+        for (int i = 0; i < orderNumbers.size(); i++) {
+            String orderNumber = orderNumbers.get(i);
+            inputPosition.putIfAbsent(orderNumber == null ? null : orderNumber.trim(), i);
+        }
+
+        List<BulkOrderAllocationResult> orderedResults = new java.util.ArrayList<>(results);
+        orderedResults.sort(Comparator.comparingInt(result -> inputPosition.getOrDefault(
+                result.getOrderNumber() == null ? null : result.getOrderNumber().trim(),
+                Integer.MAX_VALUE
+        )));
+
+        int successCount = (int) orderedResults.stream().filter(BulkOrderAllocationResult::isSuccess).count();
+        int failureCount = orderedResults.size() - successCount;
 
         return BulkAllocationResponse.builder()
-                .totalOrders(results.size())
+                .totalOrders(orderedResults.size())
                 .successCount(successCount)
                 .failureCount(failureCount)
-                .results(results)
+                .results(orderedResults)
                 .build();
     }
 
+    /**
+     * Non-blocking variant of {@link #allocateOrder(String)}: the inventory round trips are composed on the
+     * WebClient event loop and only the short database steps run on the bounded elastic scheduler, each in its
+     * own transaction. No lock is held across the inventory calls; the order is claimed through its
+     * {@code @Version} column before the deduction, retrying like the optimistic bulk path.
+     */
+    @Override
+    public Mono<AllocationResponse> allocateOrderReactive(String orderNumber) {
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        return Mono.fromCallable(() -> readOnly.execute(status -> {
+                    Order order = orderRepository.findByOrderNumber(orderNumber)
+                            .orElseThrow(() -> new BusinessException("Order not found"));
+
+                    if (order.getStatus() == OrderStatus.COMPLETED)
+                        throw new AllocationException("Order already completed");
+
+                    if (order.getRequestedQty() - order.getAllocatedQty() <= 0)
+                        throw new AllocationException("Order already fully allocated");
+
+                    return order;
+                }))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(order -> inventoryLookupCoalescer.getBatchesBySkuAndMrpReactive(order.getSkuCode(), order.getMrp())
+                        .map(batches -> {
+                            AllocationPlan plan = allocationEngine.plan(
+                                    List.of(new AllocationDemand(order.getSkuCode(), order.getMrp(), order.getRequestedQty() - order.getAllocatedQty())),
+                                    Map.of(InventoryClient.skuMrpKey(order.getSkuCode(), order.getMrp()), batches),
+                                    AllocationExecutionMode.SEQUENTIAL
+                            ).get(0);
+
+                            if (!plan.isAllocated())
+                                throw new AllocationException(plan.failureReason());
+
+                            return toOrderAllocationPlan(order, plan);
+                        }))
+                // The order is claimed before /save and released again if the deduction fails
+                .flatMap(plan -> Mono.fromCallable(() -> claimAllocationWithRetry(plan))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMap(claim -> inventoryClient.deductInventoryBulkReactive(plan.deductRequests(), UUID.randomUUID().toString())
+                                .doOnSuccess(ignored -> inventorySnapshotCache.recordDeductions(plan.deductRequests()))
+                                .thenReturn(claim.response())
+                                .onErrorResume(ex -> Mono.fromRunnable(() -> releaseClaim(claim))
+                                        .subscribeOn(Schedulers.boundedElastic())
+                                        .then(Mono.error(ex)))))
+                .onErrorMap(InventoryServiceException.class, ex -> new AllocationException(ex.getMessage()));
+    }
+
     private AllocationResponse allocateOrderInternal(String orderNumber) {
 
-        Order order = orderRepository.findByOrderNumber(orderNumber)
+        // Locked up front so no concurrent writer can fail this order's commit after its stock was deducted
+        Order order = orderRepository.findByOrderNumberInForUpdate(List.of(orderNumber)).stream()
+                .findFirst()
                 .orElseThrow(() -> new BusinessException("Order not found"));
 
         if (order.getStatus() == OrderStatus.COMPLETED)
@@ -452,13 +860,110 @@ public class OrderServiceImpl implements OrderService {
 
 //        List<InventoryBatchResponse> batches = inventoryClient.getBatchesBySkuAndMrp(order.getSkuCode(), order.getMrp());
 
-        List<InventoryBatchResponse> batches;
-        try {
-            batches = inventoryClient.getBatchesBySkuAndMrp(order.getSkuCode(), order.getMrp());
-        } catch (InventoryServiceException ex) {
-            throw new AllocationException(ex.getMessage());
+        boolean useOutbox = deductionOutbox.isEnabled();
+        boolean useSnapshotCache = !useOutbox && inventorySnapshotCache.isEnabled();
+        List<BatchAllocationDetail> allocationDetails;
+
+        while (true) {
+
+            List<InventoryBatchResponse> batches;
+            try {
+                if (useOutbox) {
+                    deductionOutbox.lockForPlanning(List.of(InventoryClient.skuMrpKey(order.getSkuCode(), order.getMrp())));
+                }
+
+                LocalDateTime fetchStartedAt = LocalDateTime.now();
+                batches = useSnapshotCache
+                        ? inventorySnapshotCache.getBatchesBySkuAndMrp(order.getSkuCode(), order.getMrp())
+                        : inventoryLookupCoalescer.getBatchesBySkuAndMrp(order.getSkuCode(), order.getMrp());
+
+                if (useOutbox) {
+                    String key = InventoryClient.skuMrpKey(order.getSkuCode(), order.getMrp());
+                    batches = deductionOutbox.withUnreflectedDeductions(Map.of(key, batches), List.of(order.getSkuCode()), fetchStartedAt)
+                            .get(key);
+                }
+            } catch (InventoryServiceException ex) {
+                throw new AllocationException(ex.getMessage());
+            }
+
+            allocationDetails = planSingleOrder(batches, remainingQty);
+
+            List<InventoryDeductRequest> deductRequests = allocationDetails.stream()
+                    .map(detail -> InventoryDeductRequest.builder()
+//                        .skuCode(order.getSkuCode())
+                                    .sku(order.getSkuCode())
+                                    .mrp(order.getMrp())
+                                    .batchNo(detail.getBatchNo())
+//                        .mrp(order.getMrp())
+                                    .quantity(detail.getQuantity())
+                                    .expiryDate(null)
+                                    .status(null)
+                                    .build()
+                    )
+                    .toList();
+
+            try {
+                if (useOutbox) {
+                    deductionOutbox.enqueue(deductRequests);
+                } else {
+                    inventoryClient.deductInventoryBulk(deductRequests, UUID.randomUUID().toString());
+                }
+                inventorySnapshotCache.recordDeductions(deductRequests);
+                break;
+            } catch (InventoryServiceException ex) {
+                if (useSnapshotCache) {
+                    inventorySnapshotCache.invalidate(List.of(new InventoryClient.OrderInventoryQuery(order.getSkuCode(), order.getMrp())));
+
+                    // The plan may have been built from a stale snapshot; re-plan once against live stock, but only
+                    // when /save is known not to have applied the deduction
+                    if (ex instanceof InventoryRejectedException) {
+                        useSnapshotCache = false;
+                        continue;
+                    }
+                }
+                throw new AllocationException(ex.getMessage());
+            }
         }
 
+        int totalAllocatedNow = allocationDetails.stream()
+                .mapToInt(BatchAllocationDetail::getQuantity)
+                .sum();
+
+        List<OrderAllocation> allocationLines = allocationDetails.stream()
+                .map(detail -> OrderAllocation.builder()
+                        .order(order)
+                        .skuCode(order.getSkuCode())
+                        .batchNo(detail.getBatchNo())
+//                        .expiryDate(detail.getExpiryDate())
+//                        .mrp(detail.getMrp())
+//                        .allocatedQty(detail.getAllocatedQty())
+                        .allocatedQty(detail.getQuantity())
+                        .build())
+                .toList();
+
+        allocationRepository.saveAll(allocationLines);
+
+        order.setAllocatedQty(order.getAllocatedQty() + totalAllocatedNow);
+
+        if (order.getAllocatedQty().equals(order.getRequestedQty()))
+            order.setStatus(OrderStatus.COMPLETED);
+        else if (order.getAllocatedQty() >0)
+            order.setStatus(OrderStatus.PARTIAL);
+
+        order.setUpdatedAt(java.time.LocalDateTime.now());
+        orderRepository.save(order);
+
+        return AllocationResponse.builder()
+                .orderNumber(order.getOrderNumber())
+                .requestedQty(order.getRequestedQty())
+                .allocatedQty(order.getAllocatedQty())
+                .status(order.getStatus())
+                .allocations(allocationDetails)
+                .build();
+    }
+
+    private List<BatchAllocationDetail> planSingleOrder(List<InventoryBatchResponse> batches, int remainingQty) {
+
         List<InventoryBatchResponse> validBatches = batches.stream()
 //                .filter(Objects::nonNull)
 //                .filter(batch -> batch.getBatchNo() != null && !batch.getBatchNo().isBlank())
@@ -503,103 +1008,86 @@ public class OrderServiceImpl implements OrderService {
         if (totalAllocatedNow == 0)
             throw new AllocationException("Insufficient stock for allocation");
 
-//        for (BatchAllocationDetail detail : allocationDetails) {
-//
-//            inventoryClient.deductInventory(
-//                    order.getSkuCode(),
-//                    detail.getBatchNo(),
-//                    detail.getAllocatedQty()
-//            );
-//        }
-
-        List<InventoryDeductRequest> deductRequests = allocationDetails.stream()
-                .map(detail -> InventoryDeductRequest.builder()
-//                        .skuCode(order.getSkuCode())
-                                .sku(order.getSkuCode())
-                                .mrp(order.getMrp())
-                                .batchNo(detail.getBatchNo())
-//                        .mrp(order.getMrp())
-                                .quantity(detail.getQuantity())
-                                .expiryDate(null)
-                                .status(null)
-                                .build()
-                )
-                .toList();
-
-//        inventoryClient.deductInventoryBulk(
-//                List.of(
-//                        InventoryOrderDeductPlan.builder()
-//                                .skuCode(order.getSkuCode())
-//                                .mrp((order.getMrp()))
-//                                .allocations(deductRequests)
-//                                .build()
-//                )
-//////                order.getOrderNumber(),
-////                order.getSkuCode(),
-////                order.getMrp(),
-//////                order.getRequestedQty(),
-//////                order.getAllocatedQty(),
-////                deductRequests
-//        );
-
-        try {
-            inventoryClient.deductInventoryBulk(deductRequests);
-        } catch (InventoryServiceException ex) {
-            throw new AllocationException(ex.getMessage());
-        }
+        return allocationDetails;
+    }
 
-        for (BatchAllocationDetail detail : allocationDetails) {
+    /**
+     * Optimistic claim for orders whose version changed since planning, run before any stock is deducted: each
+     * attempt re-reads the order in its own transaction, writes the allocation lines and totals, and relies on
+     * the {@code @Version} check at commit. A conflicting writer causes a bounded retry; if the order no longer
+     * has room for the planned quantity the claim is rejected.
+     */
+    private ClaimedAllocation claimAllocationWithRetry(OrderAllocationPlan plan) {
 
-            OrderAllocation allocation = OrderAllocation.builder()
-                    .order(order)
-                    .skuCode(order.getSkuCode())
-                    .batchNo(detail.getBatchNo())
-//                    .expiryDate(detail.getExpiryDate())
-//                    .mrp(detail.getMrp())
-//                    .allocatedQty(detail.getAllocatedQty())
-                    .allocatedQty(detail.getQuantity())
-                    .build();
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
 
-            allocationRepository.save(allocation);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return requiresNew.execute(status -> {
+                    Order current = orderRepository.findById(plan.order().getId())
+                            .orElseThrow(() -> new AllocationException("Order no longer exists"));
+
+                    if (current.getRequestedQty() - current.getAllocatedQty() < plan.totalAllocatedNow())
+                        throw new AllocationException("Order was allocated concurrently; planned quantity exceeds remaining quantity");
+
+                    List<OrderAllocation> lines = allocationRepository.saveAll(buildAllocationLines(current, plan));
+                    AllocationResponse response = applyOrderTotals(current, plan);
+
+                    return new ClaimedAllocation(
+                            current.getId(),
+                            plan.totalAllocatedNow(),
+                            lines.stream().map(OrderAllocation::getId).toList(),
+                            response);
+                });
+            } catch (ObjectOptimisticLockingFailureException ex) {
+                if (attempt >= optimisticMaxAttempts)
+                    throw new AllocationException("Order was modified concurrently, gave up after " + attempt + " attempts");
+
+                backOff(attempt);
+            }
         }
+    }
 
-        order.setAllocatedQty(order.getAllocatedQty() + totalAllocatedNow);
-
-        if (order.getAllocatedQty().equals(order.getRequestedQty()))
-            order.setStatus(OrderStatus.COMPLETED);
-        else if (order.getAllocatedQty() >0)
-            order.setStatus(OrderStatus.PARTIAL);
+    /**
+     * Compensates a committed claim whose deduction failed: its allocation lines are removed and its quantity
+     * is subtracted again, relative to whatever the order holds now.
+     */
+    private void releaseClaim(ClaimedAllocation claim) {
 
-        order.setUpdatedAt(java.time.LocalDateTime.now());
-        orderRepository.save(order);
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
 
-        return AllocationResponse.builder()
-                .orderNumber(order.getOrderNumber())
-                .requestedQty(order.getRequestedQty())
-                .allocatedQty(order.getAllocatedQty())
-                .status(order.getStatus())
-                .allocations(allocationDetails)
-                .build();
+        requiresNew.executeWithoutResult(status -> {
+            allocationRepository.deleteAllByIdInBatch(claim.allocationLineIds());
+            orderWaveRepository.releaseAllocation(claim.orderId(), claim.quantity(), LocalDateTime.now());
+        });
+        log.info("Released claim of {} units on order {} after a failed deduction", claim.quantity(), claim.response().getOrderNumber());
     }
 
-    @Transactional(propagation = org.springframework.transaction.annotation.Propagation.REQUIRES_NEW)
-    protected AllocationResponse persistAllocationForOrder(OrderAllocationPlan plan) {
-
-        Order order = plan.order();
-
-        for (BatchAllocationDetail detail : plan.allocationDetails()) {
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(optimisticBackoffMillis * attempt);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AllocationException("Allocation retry was interrupted");
+        }
+    }
 
-            OrderAllocation allocation = OrderAllocation.builder()
-                    .order(order)
-                    .skuCode(order.getSkuCode())
-                    .batchNo(detail.getBatchNo())
-                    .expiryDate(detail.getExpiryDate())
-                    .mrp(detail.getMrp())
-                    .allocatedQty(detail.getAllocatedQty())
-                    .build();
+    private List<OrderAllocation> buildAllocationLines(Order order, OrderAllocationPlan plan) {
+        return plan.allocationDetails().stream()
+                .map(detail -> OrderAllocation.builder()
+                        .order(order)
+                        .skuCode(order.getSkuCode())
+                        .batchNo(detail.getBatchNo())
+                        .expiryDate(detail.getExpiryDate())
+                        .mrp(detail.getMrp())
+                        .allocatedQty(detail.getAllocatedQty())
+                        .build())
+                .toList();
+    }
 
-            allocationRepository.save(allocation);
-        }
+    private AllocationResponse applyOrderTotals(Order order, OrderAllocationPlan plan) {
 
         order.setAllocatedQty(order.getAllocatedQty() + plan.totalAllocatedNow());
 
@@ -620,12 +1108,33 @@ public class OrderServiceImpl implements OrderService {
                 .build();
     }
 
-    private String buildSkuMrpKey(String skuCode, Double mrp) {
-        return skuCode + "||" + mrp;
+    private record WavePlanning(
+            List<OrderAllocationPlan> successfulPlans,
+            List<BulkOrderAllocationResult> failures
+    ) {
     }
 
-    private String buildBatchKey(String skuCode, Double mrp, String batchNo) {
-        return skuCode + "||" + mrp + "||" + batchNo;
+    private record WaveClaim(
+            List<OrderAllocationPlan> wavePlans,
+            List<OrderWaveRepository.OrderTotalsUpdate> waveUpdates,
+            List<OrderAllocationPlan> retriedPlans,
+            List<ClaimedAllocation> retriedClaims,
+            List<BulkOrderAllocationResult> failures
+    ) {
+
+        List<OrderAllocationPlan> claimedPlans() {
+            List<OrderAllocationPlan> claimed = new ArrayList<>(wavePlans);
+            claimed.addAll(retriedPlans);
+            return claimed;
+        }
+    }
+
+    private record ClaimedAllocation(
+            Long orderId,
+            int quantity,
+            List<Long> allocationLineIds,
+            AllocationResponse response
+    ) {
     }
 
     private record OrderAllocationPlan(
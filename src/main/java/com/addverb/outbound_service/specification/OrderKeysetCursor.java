@@ -0,0 +1,49 @@
+package com.addverb.outbound_service.specification;
+
+import com.addverb.outbound_service.exception.BusinessException;
+import com.addverb.outbound_service.repository.projection.OrderListView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+
+/**
+ * Position of the last order on a keyset page, ordered by {@code createdAt DESC, id DESC}.
+ * Clients only see it as an opaque URL-safe token.
+ */
+public record OrderKeysetCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static OrderKeysetCursor of(OrderListView order) {
+        return new OrderKeysetCursor(order.createdAt(), order.id());
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderKeysetCursor decode(String token) {
+
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator <= 0) {
+                throw new BusinessException("Invalid cursor");
+            }
+            return new OrderKeysetCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+}
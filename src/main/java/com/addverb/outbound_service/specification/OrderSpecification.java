@@ -33,6 +33,21 @@ public class OrderSpecification {
                         cb.lessThanOrEqualTo(root.get("createdAt"), toDate);
     }
 
+    /**
+     * Rows strictly after the cursor in {@code createdAt DESC, id DESC} order.
+     */
+    public static Specification<Order> seekAfter(OrderKeysetCursor cursor) {
+        return (root, query, cb) ->
+                cursor == null ? null :
+                        cb.or(
+                                cb.lessThan(root.get("createdAt"), cursor.createdAt()),
+                                cb.and(
+                                        cb.equal(root.get("createdAt"), cursor.createdAt()),
+                                        cb.lessThan(root.get("id"), cursor.id())
+                                )
+                        );
+    }
+
 }
 
 
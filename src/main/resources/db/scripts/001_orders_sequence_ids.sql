@@ -0,0 +1,59 @@
+-- One-off migration for databases created while orders / order_allocations used IDENTITY ids.
+-- Hibernate (ddl-auto=update) cannot drop the IDENTITY property of an existing column, so both tables
+-- are rebuilt with plain BIGINT ids and the pooled sequences are started above the current maximum id.
+-- The sequences must start at MAX(id) + allocationSize because Hibernate's pooled optimizer hands out
+-- the block (value - allocationSize + 1 .. value). Run once with the application stopped.
+
+BEGIN TRANSACTION;
+
+DECLARE @sql NVARCHAR(MAX);
+DECLARE @orders_start BIGINT = (SELECT COALESCE(MAX(id), 0) + 50 FROM orders);
+DECLARE @allocations_start BIGINT = (SELECT COALESCE(MAX(id), 0) + 100 FROM order_allocations);
+
+-- ddl-auto may already have created these sequences starting at 1, so always recreate them
+IF OBJECT_ID('orders_seq', 'SO') IS NOT NULL
+    DROP SEQUENCE orders_seq;
+SET @sql = N'CREATE SEQUENCE orders_seq AS BIGINT START WITH ' + CAST(@orders_start AS NVARCHAR(20)) + N' INCREMENT BY 50';
+EXEC sp_executesql @sql;
+
+IF OBJECT_ID('order_allocations_seq', 'SO') IS NOT NULL
+    DROP SEQUENCE order_allocations_seq;
+SET @sql = N'CREATE SEQUENCE order_allocations_seq AS BIGINT START WITH ' + CAST(@allocations_start AS NVARCHAR(20)) + N' INCREMENT BY 100';
+EXEC sp_executesql @sql;
+
+IF COL_LENGTH('orders', 'version') IS NULL
+    ALTER TABLE orders ADD version BIGINT NOT NULL CONSTRAINT df_orders_version DEFAULT 0;
+
+-- Drop the Hibernate-named foreign key from order_allocations to orders
+SET @sql = NULL;
+SELECT @sql = N'ALTER TABLE order_allocations DROP CONSTRAINT ' + QUOTENAME(name)
+FROM sys.foreign_keys
+WHERE parent_object_id = OBJECT_ID('order_allocations') AND referenced_object_id = OBJECT_ID('orders');
+IF @sql IS NOT NULL
+    EXEC sp_executesql @sql;
+
+-- Rebuild orders; "id + 0" stops SELECT INTO from copying the IDENTITY property
+-- Dynamic SQL so the batch still compiles when the version column was only added above
+EXEC sp_executesql N'SELECT CAST(id + 0 AS BIGINT) AS id, order_number, customer_name, address, sku_code, mrp,
+       requested_qty, allocated_qty, status, created_at, updated_at, version
+INTO orders_rebuild
+FROM orders';
+
+DROP TABLE orders;
+EXEC sp_rename 'orders_rebuild', 'orders';
+ALTER TABLE orders ALTER COLUMN id BIGINT NOT NULL;
+ALTER TABLE orders ADD CONSTRAINT pk_orders PRIMARY KEY (id);
+ALTER TABLE orders ADD CONSTRAINT uk_orders_order_number UNIQUE (order_number);
+
+-- Rebuild order_allocations
+SELECT CAST(id + 0 AS BIGINT) AS id, sku_code, batch_no, expiry_date, mrp, allocated_qty, order_id
+INTO order_allocations_rebuild
+FROM order_allocations;
+
+DROP TABLE order_allocations;
+EXEC sp_rename 'order_allocations_rebuild', 'order_allocations';
+ALTER TABLE order_allocations ALTER COLUMN id BIGINT NOT NULL;
+ALTER TABLE order_allocations ADD CONSTRAINT pk_order_allocations PRIMARY KEY (id);
+ALTER TABLE order_allocations ADD CONSTRAINT fk_order_allocations_order FOREIGN KEY (order_id) REFERENCES orders (id);
+
+COMMIT TRANSACTION;
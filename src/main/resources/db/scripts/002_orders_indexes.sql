@@ -0,0 +1,25 @@
+-- Secondary indexes for the orders read paths. ddl-auto=update creates the same indexes from the entity
+-- mappings, but JPA cannot declare INCLUDE columns, so run this once on existing databases to get the
+-- covering variant of ix_orders_created_at_id. Safe to re-run.
+--
+--   ix_orders_status_created_at    countByStatus, status filters, status + date filters
+--   ix_orders_created_at_id        countByCreatedAtBetween, date filters, keyset paging, daily order/allocation charts
+--   ix_orders_sku_code_created_at  SKU filter ordered by created_at
+--   ix_order_allocations_order_id  allocations of an order
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'ix_orders_status_created_at' AND object_id = OBJECT_ID('orders'))
+    CREATE INDEX ix_orders_status_created_at ON orders (status, created_at);
+
+-- Always rebuilt, since ddl-auto may already have created it without the INCLUDE column
+IF EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'ix_orders_created_at_id' AND object_id = OBJECT_ID('orders'))
+    DROP INDEX ix_orders_created_at_id ON orders;
+CREATE INDEX ix_orders_created_at_id ON orders (created_at, id) INCLUDE (allocated_qty);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'ix_orders_sku_code_created_at' AND object_id = OBJECT_ID('orders'))
+    CREATE INDEX ix_orders_sku_code_created_at ON orders (sku_code, created_at);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'ix_order_allocations_order_id' AND object_id = OBJECT_ID('order_allocations'))
+    CREATE INDEX ix_order_allocations_order_id ON order_allocations (order_id);
+
+UPDATE STATISTICS orders;
+UPDATE STATISTICS order_allocations;
@@ -0,0 +1,15 @@
+-- Sequence behind OrderNumberGenerator. Each NEXT VALUE FOR reserves a block of INCREMENT BY order numbers
+-- for one instance, so the increment is the block size (100). Starts above the highest ORD-nnnnnnnnnn number
+-- already issued, in case the sequence was dropped. Safe to re-run; an existing sequence is left as it is.
+
+IF OBJECT_ID('order_number_seq', 'SO') IS NULL
+BEGIN
+    DECLARE @start BIGINT = (
+        SELECT COALESCE(MAX(CAST(SUBSTRING(order_number, 5, 10) AS BIGINT)), 0) + 1
+        FROM orders
+        WHERE order_number LIKE 'ORD-' + REPLICATE('[0-9]', 10)
+    );
+    DECLARE @sql NVARCHAR(MAX) = N'CREATE SEQUENCE order_number_seq AS BIGINT START WITH '
+        + CAST(@start AS NVARCHAR(20)) + N' INCREMENT BY 100 NO CYCLE';
+    EXEC sp_executesql @sql;
+END;
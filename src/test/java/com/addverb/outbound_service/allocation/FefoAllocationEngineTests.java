@@ -0,0 +1,201 @@
+package com.addverb.outbound_service.allocation;
+
+import com.addverb.outbound_service.dto.BatchAllocationDetail;
+import com.addverb.outbound_service.enums.AllocationExecutionMode;
+import com.addverb.outbound_service.inventory.InventoryBatchResponse;
+import com.addverb.outbound_service.inventory.InventoryClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FefoAllocationEngineTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 1);
+
+    private final FefoAllocationEngine engine = new FefoAllocationEngine(AllocationExecutionMode.SEQUENTIAL, 4, 0);
+
+    @AfterEach
+    void shutdownEngine() {
+        engine.shutdown();
+    }
+
+    @Test
+    void allocatesEarliestExpiryFirstAcrossBatches() {
+        Map<String, List<InventoryBatchResponse>> inventory = inventory("SKU-1", 10.0,
+                batch("LATE", TODAY.plusDays(30), 5),
+                batch("EARLY", TODAY.plusDays(5), 3),
+                batch("MIDDLE", TODAY.plusDays(10), 4));
+
+        AllocationPlan plan = plan(List.of(new AllocationDemand("SKU-1", 10.0, 6)), inventory).get(0);
+
+        assertTrue(plan.isAllocated());
+        assertEquals(6, plan.allocatedQty());
+        assertEquals(List.of("EARLY", "MIDDLE"), batchNos(plan));
+        assertEquals(List.of(3, 3), quantities(plan));
+    }
+
+    @Test
+    void laterOrdersContinueFromRemainingStockInRequestOrder() {
+        Map<String, List<InventoryBatchResponse>> inventory = inventory("SKU-1", 10.0,
+                batch("B1", TODAY.plusDays(1), 4),
+                batch("B2", TODAY.plusDays(2), 4));
+
+        List<AllocationPlan> plans = plan(List.of(
+                new AllocationDemand("SKU-1", 10.0, 3),
+                new AllocationDemand("SKU-1", 10.0, 3),
+                new AllocationDemand("SKU-1", 10.0, 3)
+        ), inventory);
+
+        assertEquals(List.of("B1"), batchNos(plans.get(0)));
+        assertEquals(List.of("B1", "B2"), batchNos(plans.get(1)));
+        assertEquals(List.of(1, 2), quantities(plans.get(1)));
+        assertEquals(List.of("B2"), batchNos(plans.get(2)));
+        assertEquals(2, plans.get(2).allocatedQty());
+    }
+
+    @Test
+    void partiallyAllocatesWhenStockRunsShortAndThenRejects() {
+        Map<String, List<InventoryBatchResponse>> inventory = inventory("SKU-1", 10.0,
+                batch("B1", TODAY.plusDays(1), 2));
+
+        List<AllocationPlan> plans = plan(List.of(
+                new AllocationDemand("SKU-1", 10.0, 5),
+                new AllocationDemand("SKU-1", 10.0, 1)
+        ), inventory);
+
+        assertTrue(plans.get(0).isAllocated());
+        assertEquals(2, plans.get(0).allocatedQty());
+        assertFalse(plans.get(1).isAllocated());
+        assertEquals(FefoAllocationEngine.INSUFFICIENT_STOCK_MESSAGE, plans.get(1).failureReason());
+    }
+
+    @Test
+    void rejectsKeysMissingFromTheSnapshot() {
+        AllocationPlan plan = plan(List.of(new AllocationDemand("SKU-X", 10.0, 1)), new HashMap<>()).get(0);
+
+        assertFalse(plan.isAllocated());
+        assertEquals(FefoAllocationEngine.NO_INVENTORY_MESSAGE, plan.failureReason());
+    }
+
+    @Test
+    void sortsBatchesWithoutExpiryLastAndSkipsEmptyBatches() {
+        Map<String, List<InventoryBatchResponse>> inventory = inventory("SKU-1", 10.0,
+                batch("NO-EXPIRY", null, 5),
+                batch("EMPTY", TODAY, 0),
+                batch("DATED", TODAY.plusDays(3), 2));
+
+        AllocationPlan plan = plan(List.of(new AllocationDemand("SKU-1", 10.0, 4)), inventory).get(0);
+
+        assertEquals(List.of("DATED", "NO-EXPIRY"), batchNos(plan));
+        assertEquals(List.of(2, 2), quantities(plan));
+    }
+
+    @Test
+    void usesOnlyTheEarliestExpiringCopyOfADuplicatedBatchNo() {
+        Map<String, List<InventoryBatchResponse>> inventory = inventory("SKU-1", 10.0,
+                batch("DUP", TODAY.plusDays(9), 50),
+                batch("DUP", TODAY.plusDays(2), 1),
+                batch("OTHER", TODAY.plusDays(5), 1));
+
+        AllocationPlan plan = plan(List.of(new AllocationDemand("SKU-1", 10.0, 10)), inventory).get(0);
+
+        assertEquals(List.of("DUP", "OTHER"), batchNos(plan));
+        assertEquals(2, plan.allocatedQty());
+    }
+
+    @Test
+    void matchesSkuCaseInsensitivelyAndSharesStockAcrossSpellings() {
+        Map<String, List<InventoryBatchResponse>> inventory = inventory("sku-1", 10.0,
+                batch("B1", TODAY.plusDays(1), 3));
+
+        List<AllocationPlan> plans = plan(List.of(
+                new AllocationDemand("SKU-1", 10.0, 2),
+                new AllocationDemand(" sku-1 ", 10.0, 2)
+        ), inventory);
+
+        assertEquals(2, plans.get(0).allocatedQty());
+        assertEquals(1, plans.get(1).allocatedQty());
+    }
+
+    @Test
+    void partitionedModeProducesTheSamePlansAsSequential() {
+        Random random = new Random(42);
+        Map<String, List<InventoryBatchResponse>> inventory = new HashMap<>();
+        List<AllocationDemand> demands = new ArrayList<>();
+
+        for (int key = 0; key < 200; key++) {
+            // Every tenth key is missing from the snapshot
+            if (key % 10 == 9) {
+                continue;
+            }
+            List<InventoryBatchResponse> batches = new ArrayList<>();
+            for (int b = 0; b < 1 + random.nextInt(5); b++) {
+                LocalDate expiry = random.nextInt(6) == 0 ? null : TODAY.plusDays(random.nextInt(20));
+                // Batch numbers repeat within a key, and batch number / expiry collisions happen
+                batches.add(batch("B" + random.nextInt(3), expiry, random.nextInt(8)));
+            }
+            inventory.put(InventoryClient.skuMrpKey("sku-" + key, 10.0), batches);
+        }
+
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(200);
+            // Mixed casing and padding map several spellings onto one shared SKU||MRP key
+            String skuCode = switch (random.nextInt(3)) {
+                case 0 -> "sku-" + key;
+                case 1 -> "SKU-" + key;
+                default -> " Sku-" + key + " ";
+            };
+            demands.add(new AllocationDemand(skuCode, 10.0, random.nextInt(6)));
+        }
+
+        FefoAllocationEngine partitionedEngine = new FefoAllocationEngine(AllocationExecutionMode.PARTITIONED, 4, 0);
+        try {
+            List<AllocationPlan> sequential = engine.plan(demands, inventory, AllocationExecutionMode.SEQUENTIAL);
+            List<AllocationPlan> partitioned = partitionedEngine.plan(demands, inventory, AllocationExecutionMode.PARTITIONED);
+
+            assertEquals(sequential.size(), partitioned.size());
+            for (int i = 0; i < sequential.size(); i++) {
+                assertEquals(sequential.get(i), partitioned.get(i), "plan " + i + " for " + demands.get(i));
+            }
+        } finally {
+            partitionedEngine.shutdown();
+        }
+    }
+
+    private List<AllocationPlan> plan(List<AllocationDemand> demands, Map<String, List<InventoryBatchResponse>> inventory) {
+        return engine.plan(demands, inventory, AllocationExecutionMode.SEQUENTIAL);
+    }
+
+    static Map<String, List<InventoryBatchResponse>> inventory(String skuCode, Double mrp, InventoryBatchResponse... batches) {
+        Map<String, List<InventoryBatchResponse>> inventory = new HashMap<>();
+        inventory.put(InventoryClient.skuMrpKey(skuCode, mrp), new ArrayList<>(Arrays.asList(batches)));
+        return inventory;
+    }
+
+    static InventoryBatchResponse batch(String batchNo, LocalDate expiryDate, int quantity) {
+        InventoryBatchResponse batch = new InventoryBatchResponse();
+        batch.setBatchNo(batchNo);
+        batch.setExpiryDate(expiryDate);
+        batch.setQuantity(quantity);
+        return batch;
+    }
+
+    private static List<String> batchNos(AllocationPlan plan) {
+        return plan.allocations().stream().map(BatchAllocationDetail::getBatchNo).toList();
+    }
+
+    private static List<Integer> quantities(AllocationPlan plan) {
+        return plan.allocations().stream().map(BatchAllocationDetail::getAllocatedQty).toList();
+    }
+}
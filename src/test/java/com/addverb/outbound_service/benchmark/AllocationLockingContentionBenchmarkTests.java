@@ -0,0 +1,162 @@
+package com.addverb.outbound_service.benchmark;
+
+import com.addverb.outbound_service.dto.BulkAllocationResponse;
+import com.addverb.outbound_service.entity.Order;
+import com.addverb.outbound_service.enums.AllocationLockingMode;
+import com.addverb.outbound_service.enums.OrderStatus;
+import com.addverb.outbound_service.inventory.InventoryBatchResponse;
+import com.addverb.outbound_service.inventory.InventoryClient;
+import com.addverb.outbound_service.repository.OrderRepository;
+import com.addverb.outbound_service.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares bulk allocation throughput of the pessimistic and optimistic locking modes while several
+ * allocators work on overlapping waves. The inventory service is replaced by a stub that adds a fixed
+ * round-trip delay, which is the window in which the pessimistic mode holds its row locks. The inventory cache
+ * is switched off so every wave pays that round trip instead of running out of cached stock after the first one.
+ * <p>
+ * Needs the configured database; run with {@code ./mvnw test -Dtest=AllocationLockingContentionBenchmarkTests -Dbenchmark=true}.
+ */
+@SpringBootTest(properties = "app.inventory.cache.enabled=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AllocationLockingContentionBenchmarkTests {
+
+    private static final int ORDER_POOL_SIZE = 400;
+    private static final int WAVE_SIZE = 50;
+    private static final int ALLOCATORS = 8;
+    private static final long INVENTORY_ROUND_TRIP_MILLIS = 15;
+    private static final long RUN_SECONDS = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @MockitoBean
+    private InventoryClient inventoryClient;
+
+    private final List<String> orderNumbers = new ArrayList<>();
+
+    @BeforeEach
+    void seedOrdersAndStubInventory() {
+        String runId = Long.toString(System.nanoTime(), 36).toUpperCase();
+        List<Order> orders = new ArrayList<>();
+
+        for (int i = 0; i < ORDER_POOL_SIZE; i++) {
+            orders.add(Order.builder()
+                    .orderNumber("BENCH-" + runId + "-" + i)
+                    .customerName("Benchmark")
+                    .address("Benchmark")
+                    .skuCode("BENCH-SKU-" + runId + "-" + i)
+                    .mrp(10.0)
+                    .requestedQty(Integer.MAX_VALUE)
+                    .allocatedQty(0)
+                    .status(OrderStatus.PENDING)
+                    .createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        }
+        orderRepository.saveAll(orders).forEach(order -> orderNumbers.add(order.getOrderNumber()));
+
+        when(inventoryClient.getBatchesBySkuAndMrpBulk(anyList())).thenAnswer(invocation -> {
+            simulateRoundTrip();
+            Map<String, List<InventoryBatchResponse>> batches = new HashMap<>();
+            for (Object query : invocation.getArgument(0, List.class)) {
+                InventoryClient.OrderInventoryQuery inventoryQuery = (InventoryClient.OrderInventoryQuery) query;
+                InventoryBatchResponse batch = new InventoryBatchResponse();
+                batch.setBatchNo("B1");
+                batch.setMrp(inventoryQuery.mrp());
+                batch.setQuantity(1);
+                batch.setExpiryDate(LocalDate.now().plusDays(30));
+                batches.put(InventoryClient.skuMrpKey(inventoryQuery.skuCode(), inventoryQuery.mrp()), List.of(batch));
+            }
+            return batches;
+        });
+        doAnswer(invocation -> {
+            simulateRoundTrip();
+            return null;
+        }).when(inventoryClient).deductInventoryBulk(anyList());
+    }
+
+    @AfterEach
+    void removeSeededOrders() {
+        orderRepository.deleteAll(orderRepository.findByOrderNumberIn(orderNumbers));
+    }
+
+    @Test
+    void compareLockingModesUnderContention() throws InterruptedException {
+        double pessimistic = measure(AllocationLockingMode.PESSIMISTIC);
+        double optimistic = measure(AllocationLockingMode.OPTIMISTIC);
+
+        System.out.printf("Allocation contention benchmark (%d allocators, waves of %d over %d orders, %d ms inventory round trip)%n",
+                ALLOCATORS, WAVE_SIZE, ORDER_POOL_SIZE, INVENTORY_ROUND_TRIP_MILLIS);
+        System.out.printf("  PESSIMISTIC: %.1f allocated orders/s%n", pessimistic);
+        System.out.printf("  OPTIMISTIC : %.1f allocated orders/s%n", optimistic);
+    }
+
+    private double measure(AllocationLockingMode mode) throws InterruptedException {
+        AtomicLong allocated = new AtomicLong();
+        AtomicLong failedWaves = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(RUN_SECONDS);
+        ExecutorService allocators = Executors.newFixedThreadPool(ALLOCATORS);
+
+        for (int i = 0; i < ALLOCATORS; i++) {
+            allocators.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        BulkAllocationResponse response = orderService.allocateOrdersBulk(randomWave(), mode);
+                        allocated.addAndGet(response.getSuccessCount());
+                    } catch (RuntimeException ex) {
+                        failedWaves.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        allocators.shutdown();
+        allocators.awaitTermination(RUN_SECONDS + 60, TimeUnit.SECONDS);
+
+        if (failedWaves.get() > 0)
+            System.out.printf("  %s: %d waves failed (deadlock victims or conflicts)%n", mode, failedWaves.get());
+
+        return allocated.get() / (double) RUN_SECONDS;
+    }
+
+    private List<String> randomWave() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int start = random.nextInt(ORDER_POOL_SIZE);
+        List<String> wave = new ArrayList<>(WAVE_SIZE);
+        for (int i = 0; i < WAVE_SIZE; i++) {
+            wave.add(orderNumbers.get((start + i) % ORDER_POOL_SIZE));
+        }
+        return wave;
+    }
+
+    private static void simulateRoundTrip() throws InterruptedException {
+        Thread.sleep(INVENTORY_ROUND_TRIP_MILLIS);
+    }
+}
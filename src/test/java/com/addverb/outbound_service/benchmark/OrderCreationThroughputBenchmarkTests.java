@@ -0,0 +1,121 @@
+package com.addverb.outbound_service.benchmark;
+
+import com.addverb.outbound_service.dto.CreateOrderRequest;
+import com.addverb.outbound_service.entity.Order;
+import com.addverb.outbound_service.enums.OrderStatus;
+import com.addverb.outbound_service.repository.OrderRepository;
+import com.addverb.outbound_service.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares create-order throughput of the block-reserved order number generator with the previous scheme,
+ * which drew a random 8-hex suffix and looked it up until it found an unused one.
+ * <p>
+ * Needs the configured database; run with {@code ./mvnw test -Dtest=OrderCreationThroughputBenchmarkTests -Dbenchmark=true}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderCreationThroughputBenchmarkTests {
+
+    private static final String CUSTOMER_NAME = "Order Number Benchmark";
+    private static final int CREATORS = 8;
+    private static final long RUN_SECONDS = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void removeCreatedOrders() {
+        jdbcTemplate.update("DELETE FROM orders WHERE customer_name = ?", CUSTOMER_NAME);
+    }
+
+    @Test
+    void compareOrderNumberSchemes() throws InterruptedException {
+        double lookupLoop = measure(this::createWithLookupLoop);
+        double blockReserved = measure(() -> orderService.createOrder(request()));
+
+        System.out.printf("Create-order throughput (%d creators, %d s each)%n", CREATORS, RUN_SECONDS);
+        System.out.printf("  Random suffix + lookup loop: %.1f orders/s%n", lookupLoop);
+        System.out.printf("  Block-reserved sequence    : %.1f orders/s%n", blockReserved);
+    }
+
+    private double measure(Runnable createOrder) throws InterruptedException {
+        AtomicLong created = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(RUN_SECONDS);
+        ExecutorService creators = Executors.newFixedThreadPool(CREATORS);
+
+        for (int i = 0; i < CREATORS; i++) {
+            creators.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        createOrder.run();
+                        created.incrementAndGet();
+                    } catch (RuntimeException ex) {
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        creators.shutdown();
+        creators.awaitTermination(RUN_SECONDS + 60, TimeUnit.SECONDS);
+
+        if (failed.get() > 0)
+            System.out.printf("  %d creations failed (duplicate order numbers)%n", failed.get());
+
+        return created.get() / (double) RUN_SECONDS;
+    }
+
+    /**
+     * The scheme the generator replaced, kept here as the baseline.
+     */
+    private void createWithLookupLoop() {
+        String orderNumber;
+        do {
+            orderNumber = "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        } while (orderRepository.findByOrderNumber(orderNumber).isPresent());
+
+        CreateOrderRequest request = request();
+        orderRepository.save(Order.builder()
+                .orderNumber(orderNumber)
+                .customerName(request.getCustomerName())
+                .address(request.getAddress())
+                .skuCode(request.getSkuCode())
+                .mrp(request.getMrp())
+                .requestedQty(request.getRequestedQty())
+                .allocatedQty(0)
+                .status(OrderStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build());
+    }
+
+    private static CreateOrderRequest request() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setCustomerName(CUSTOMER_NAME);
+        request.setAddress("Benchmark");
+        request.setSkuCode("BENCH-SKU");
+        request.setMrp(10.0);
+        request.setRequestedQty(1);
+        return request;
+    }
+}
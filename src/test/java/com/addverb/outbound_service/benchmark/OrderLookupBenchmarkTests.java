@@ -0,0 +1,100 @@
+package com.addverb.outbound_service.benchmark;
+
+import com.addverb.outbound_service.repository.OrderRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures bulk order lookup latency for waves of 1k, 10k and 50k order numbers, both the plain chunked
+ * lookup and the id-ordered PESSIMISTIC_WRITE variant used by bulk allocation.
+ * <p>
+ * Needs the configured database; run with {@code ./mvnw test -Dtest=OrderLookupBenchmarkTests -Dbenchmark=true}.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderLookupBenchmarkTests {
+
+    private static final String ORDER_PREFIX = "LOOKUP-BENCH-";
+    private static final int SEEDED_ORDERS = 50_000;
+    private static final int[] WAVE_SIZES = {1_000, 10_000, 50_000};
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<String> orderNumbers = new ArrayList<>();
+
+    @BeforeAll
+    void seedOrders() {
+        removeSeededOrders();
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(SEEDED_ORDERS);
+        for (int i = 0; i < SEEDED_ORDERS; i++) {
+            String orderNumber = ORDER_PREFIX + i;
+            orderNumbers.add(orderNumber);
+            rows.add(new Object[]{orderNumber, "Benchmark", "Benchmark", "SKU-" + (i % 500), 10.0, 10, 0, "PENDING", now, now});
+        }
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO orders (id, order_number, customer_name, address, sku_code, mrp, requested_qty, allocated_qty, status, created_at, updated_at, version)
+                VALUES (NEXT VALUE FOR orders_seq, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+                """, rows);
+    }
+
+    @AfterAll
+    void removeSeededOrders() {
+        jdbcTemplate.update("DELETE FROM orders WHERE order_number LIKE ?", ORDER_PREFIX + "%");
+    }
+
+    @Test
+    void compareLookupLatencyByWaveSize() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        System.out.println("Bulk order lookup latency (median of " + ROUNDS + " rounds)");
+        for (int waveSize : WAVE_SIZES) {
+            List<String> wave = orderNumbers.subList(0, waveSize);
+
+            long plain = medianMillis(() -> transaction.execute(status -> orderRepository.findAllByOrderNumbers(wave)), waveSize);
+            long locked = medianMillis(() -> transaction.execute(status -> orderRepository.findAllByOrderNumbersForUpdate(wave)), waveSize);
+
+            System.out.printf("  %,7d orders: plain %,6d ms, for update %,6d ms%n", waveSize, plain, locked);
+        }
+    }
+
+    private long medianMillis(Supplier<List<?>> lookup, int expectedSize) {
+        long[] samples = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<?> result = lookup.get();
+            samples[round] = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(expectedSize, result.size());
+        }
+        Arrays.sort(samples);
+        return samples[ROUNDS / 2];
+    }
+}
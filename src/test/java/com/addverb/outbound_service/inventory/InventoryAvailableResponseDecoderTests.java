@@ -0,0 +1,346 @@
+package com.addverb.outbound_service.inventory;
+
+import com.addverb.outbound_service.exception.InventoryServiceException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Feeds every {@code /available} shape, and the edge cases between them, through the tree-based parser the
+ * decoder replaced and through the decoder itself, and expects the same rows or the same failure.
+ */
+class InventoryAvailableResponseDecoderTests {
+
+    private static final String UNEXPECTED_SHAPE = "Inventory fetch failed: Unexpected /available response shape";
+    private static final String PARSING_FAILED = "Inventory response parsing failed";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final InventoryAvailableResponseDecoder decoder = new InventoryAvailableResponseDecoder(objectMapper);
+    private final BaselineParser baseline = new BaselineParser(objectMapper);
+
+    static Stream<Arguments> responses() {
+        return Stream.of(
+                Arguments.of("blank body", ""),
+                Arguments.of("empty root array", "[]"),
+                Arguments.of("root array of sku/mrp objects", """
+                        [{"sku":"SKU-1","mrp":10.0,"batches":[{"batchNo":"B1","expiryDate":"2026-02-01","mrp":10.0,"quantity":5}]},
+                         null,
+                         {"sku":"SKU-2","mrp":12.5,"batches":[]}]"""),
+                Arguments.of("single sku/mrp root object", """
+                        {"batches":[{"batchNo":"B1","quantity":3}],"mrp":"10.5","sku":"SKU-1"}"""),
+                Arguments.of("envelope with sku/mrp array", """
+                        {"success":true,"message":"ok","data":[{"sku":"SKU-1","mrp":10.0,"batches":[{"batchNo":"B1","quantity":1}]}]}"""),
+                Arguments.of("envelope with single sku/mrp object", """
+                        {"success":true,"data":{"sku":"SKU-1","mrp":10.0,"batches":null}}"""),
+                Arguments.of("envelope with sku||mrp map", """
+                        {"success":true,"data":{
+                          "SKU-1||10.0":[{"batchNo":"B1","expiryDate":"2026-03-01","mrp":10.0,"quantity":4},
+                                         {"batchNo":null,"quantity":9},
+                                         "not-a-batch",
+                                         {"batchNo":"B2","expiryDate":"not-a-date","quantity":"7","extra":{"x":[1]}}],
+                          "SKU-2||12.5":[],
+                          "no-separator":[{"batchNo":"X"}],
+                          "SKU-3||abc":[{"batchNo":"Y"}],
+                          "SKU-4||1.0":{"batchNo":"Z"}}}"""),
+                Arguments.of("envelope with flat batch rows", """
+                        {"success":true,"data":[
+                          {"sku":" Sku-1 ","mrp":10.0,"batchNo":"B1","expiryDate":"2026-02-01","quantity":5},
+                          {"sku":"SKU-2","mrp":12.5,"batchNo":"B9","quantity":1},
+                          {"sku":"sku-1","mrp":10.0,"batchNo":"B2","quantity":2},
+                          {"sku":"SKU-3","mrp":1.0,"batchNo":"B3"},
+                          {"sku":"","mrp":1.0,"batchNo":"B4","quantity":1},
+                          null]}"""),
+                Arguments.of("empty data array", "{\"success\":true,\"data\":[]}"),
+                Arguments.of("data before success false", """
+                        {"data":[{"sku":"SKU-1","mrp":10.0,"batches":[]}],"success":false,"message":"stock service down"}"""),
+                Arguments.of("success false before data", """
+                        {"success":false,"message":"stock service down","data":[{"sku":"SKU-1","mrp":10.0,"batches":[]}]}"""),
+                Arguments.of("success false as text without message", "{\"success\":\"false\"}"),
+                Arguments.of("success false with numeric message", "{\"success\":0,\"message\":42}"),
+                Arguments.of("success false with object message", "{\"success\":false,\"message\":{\"code\":1}}"),
+                Arguments.of("success null with data", """
+                        {"success":null,"data":[{"sku":"SKU-1","mrp":10.0,"batches":[]}]}"""),
+                Arguments.of("success object with data", """
+                        {"success":{"value":false},"data":[{"sku":"SKU-1","mrp":10.0,"batches":[]}]}"""),
+                Arguments.of("root sku/mrp object with data", """
+                        {"data":[{"sku":"SKU-9","mrp":9.0,"batches":[]}],"sku":"SKU-1","mrp":10.0,"batches":[{"batchNo":"B1","quantity":2}]}"""),
+                Arguments.of("root sku/mrp object with success false", """
+                        {"success":false,"message":"ignored","sku":"SKU-1","mrp":10.0,"batches":[]}"""),
+                Arguments.of("root sku/mrp object with unmappable data", """
+                        {"sku":"SKU-1","mrp":10.0,"batches":[],"data":[{"sku":"SKU-2","mrp":"abc","batches":[]}]}"""),
+                Arguments.of("unmappable data before success false", """
+                        {"data":[{"sku":"SKU-2","mrp":"abc","batches":[]}],"success":false,"message":"down"}"""),
+                Arguments.of("unmappable data", """
+                        {"success":true,"data":[{"sku":"SKU-2","mrp":10.0,"batches":[{"batchNo":"B1","quantity":{"n":1}}]}]}"""),
+                Arguments.of("unmappable root batches beside data", """
+                        {"batches":{"n":1},"data":[{"sku":"SKU-1","mrp":10.0,"batches":[]}]}"""),
+                Arguments.of("unmappable complete root object", """
+                        {"sku":"SKU-1","mrp":10.0,"batches":[{"batchNo":"B1","expiryDate":"not-a-date"}]}"""),
+                Arguments.of("partial root fields beside data", """
+                        {"sku":"SKU-1","mrp":10.0,"data":[{"sku":"SKU-2","mrp":11.0,"batches":[]}]}"""),
+                Arguments.of("map entries win over data sku/mrp fields", """
+                        {"data":{"sku":"SKU-1","mrp":10.0,"batches":[],"SKU-2||11.0":[{"batchNo":"B1","quantity":1}]}}"""),
+                Arguments.of("data sku/mrp fields without map entries", """
+                        {"data":{"sku":"SKU-1","mrp":10.0,"batches":[{"batchNo":"B1","quantity":1}],"no-separator":[1]}}"""),
+                Arguments.of("data object without recognised fields", "{\"data\":{\"sku\":\"SKU-1\"}}"),
+                Arguments.of("data null", "{\"success\":true,\"data\":null}"),
+                Arguments.of("data scalar", "{\"success\":true,\"data\":\"none\"}"),
+                Arguments.of("no data", "{\"success\":true,\"message\":\"ok\"}"),
+                Arguments.of("scalar root", "42"),
+                Arguments.of("null root", "null"),
+                Arguments.of("malformed json", "{\"success\":true,\"data\":[{\"sku\":")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("responses")
+    void decodingMatchesTheTreeBasedParser(String name, String body) {
+        Object expected = outcome(() -> Arrays.asList(baseline.parse(body)));
+
+        assertEquals(expected, outcome(() -> decoder.decode(body)), "decode(String)");
+        assertEquals(expected, outcome(() -> decoder.decode(chunked(body, 7)).collectList().block()), "decode(Flux)");
+        assertEquals(expected, outcome(() -> decoder.decode(chunked(body, 1)).collectList().block()), "decode(Flux) byte by byte");
+    }
+
+    @Test
+    void rowsAreEmittedOnTheDeliveringThreadBeforeTheBodyEnds() {
+        Flux<DataBuffer> body = chunked("[{\"sku\":\"SKU-1\",\"mrp\":10.0,\"batches\":[]},{\"sku\":", 7)
+                .concatWith(Flux.never());
+        Thread caller = Thread.currentThread();
+
+        StepVerifier.create(decoder.decode(body))
+                .assertNext(row -> {
+                    assertEquals("SKU-1", row.getSku());
+                    assertSame(caller, Thread.currentThread());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private Object outcome(Supplier<List<InventoryBatchesBySkuMrpResponse>> parse) {
+        try {
+            // Null rows are dropped by InventoryClient either way; the decoder just never emits them
+            return parse.get().stream().filter(Objects::nonNull).toList();
+        } catch (InventoryServiceException ex) {
+            String message = ex.getMessage();
+            if (message.startsWith(UNEXPECTED_SHAPE)) {
+                return UNEXPECTED_SHAPE;
+            }
+            return message.startsWith(PARSING_FAILED) ? PARSING_FAILED : message;
+        }
+    }
+
+    private static Flux<DataBuffer> chunked(String body, int chunkSize) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + chunkSize))));
+        }
+        return Flux.fromIterable(buffers);
+    }
+
+    /**
+     * The {@code /available} parsing InventoryClient did before the decoder, kept verbatim as the reference.
+     */
+    private static final class BaselineParser {
+
+        private final ObjectMapper objectMapper;
+
+        BaselineParser(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        InventoryBatchesBySkuMrpResponse[] parse(String rawResponse) {
+
+            if (rawResponse == null || rawResponse.isBlank()) {
+                return new InventoryBatchesBySkuMrpResponse[0];
+            }
+
+            try {
+                JsonNode root = objectMapper.readTree(rawResponse);
+
+                if (root.isArray()) {
+                    return objectMapper.treeToValue(root, InventoryBatchesBySkuMrpResponse[].class);
+                }
+
+                if (looksLikeSkuMrpResponse(root)) {
+                    return new InventoryBatchesBySkuMrpResponse[]{
+                            objectMapper.treeToValue(root, InventoryBatchesBySkuMrpResponse.class)
+                    };
+                }
+
+                if (root.has("success") && !root.path("success").asBoolean(true)) {
+                    String message = root.path("message").asText("Inventory fetch failed");
+                    throw new InventoryServiceException("Inventory fetch failed: " + message);
+                }
+
+                JsonNode dataNode = root.get("data");
+                if (dataNode != null) {
+                    if (dataNode.isObject()) {
+                        InventoryBatchesBySkuMrpResponse[] mapBased = parseSkuMrpMapData(dataNode);
+                        if (mapBased.length > 0) {
+                            return mapBased;
+                        }
+                    }
+
+                    if (dataNode.isArray()) {
+                        if (dataNode.size() > 0 && dataNode.get(0).isObject() && dataNode.get(0).has("sku") && dataNode.get(0).has("batchNo")) {
+                            return mapFlatBatchRows(dataNode);
+                        }
+                        return objectMapper.treeToValue(dataNode, InventoryBatchesBySkuMrpResponse[].class);
+                    }
+                    if (looksLikeSkuMrpResponse(dataNode)) {
+                        return new InventoryBatchesBySkuMrpResponse[]{
+                                objectMapper.treeToValue(dataNode, InventoryBatchesBySkuMrpResponse.class)
+                        };
+                    }
+
+                }
+
+                throw new InventoryServiceException("Inventory fetch failed: Unexpected /available response shape -> " + rawResponse);
+            } catch (InventoryServiceException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new InventoryServiceException("Inventory response parsing failed: " + ex.getMessage());
+            }
+        }
+
+        private InventoryBatchesBySkuMrpResponse[] parseSkuMrpMapData(JsonNode dataNode) {
+            List<InventoryBatchesBySkuMrpResponse> mapped = new ArrayList<>();
+
+            dataNode.fields().forEachRemaining(entry -> {
+                String key = entry.getKey();
+                JsonNode value = entry.getValue();
+
+                if (!value.isArray()) {
+                    return;
+                }
+
+                String[] parts = key.split("\\|\\|", 2);
+                if (parts.length != 2) {
+                    return;
+                }
+
+                Double mrp;
+                try {
+                    mrp = Double.parseDouble(parts[1]);
+                } catch (NumberFormatException ex) {
+                    return;
+                }
+
+                List<InventoryBatchResponse> batches = new ArrayList<>();
+                value.forEach(item -> {
+                    if (!item.isObject()) {
+                        return;
+                    }
+
+                    InventoryBatchResponse batch = new InventoryBatchResponse();
+                    batch.setBatchNo(item.path("batchNo").isMissingNode() ? null : item.path("batchNo").asText(null));
+
+                    if (!item.path("mrp").isMissingNode() && !item.path("mrp").isNull()) {
+                        batch.setMrp(item.path("mrp").asDouble());
+                    }
+
+                    if (!item.path("quantity").isMissingNode() && !item.path("quantity").isNull()) {
+                        batch.setQuantity(item.path("quantity").asInt());
+                    }
+
+                    if (!item.path("expiryDate").isMissingNode() && !item.path("expiryDate").isNull()) {
+                        try {
+                            batch.setExpiryDate(LocalDate.parse(item.path("expiryDate").asText()));
+                        } catch (Exception ignored) {
+                        }
+                    }
+
+                    if (batch.getBatchNo() != null) {
+                        batches.add(batch);
+                    }
+                });
+
+                InventoryBatchesBySkuMrpResponse row = new InventoryBatchesBySkuMrpResponse();
+                row.setSku(parts[0]);
+                row.setMrp(mrp);
+                row.setBatches(batches);
+                mapped.add(row);
+            });
+
+            return mapped.toArray(new InventoryBatchesBySkuMrpResponse[0]);
+        }
+
+        private InventoryBatchesBySkuMrpResponse[] mapFlatBatchRows(JsonNode rowsNode) {
+            List<FlatBatchRow> rows = Arrays.asList(objectMapper.convertValue(rowsNode, FlatBatchRow[].class));
+
+            Map<String, List<InventoryBatchResponse>> grouped = new LinkedHashMap<>();
+            Map<String, Double> mrpByKey = new LinkedHashMap<>();
+
+            for (FlatBatchRow row : rows) {
+                if (row == null || row.sku == null || row.sku.isBlank() || row.mrp == null) {
+                    continue;
+                }
+
+                String key = InventoryClient.skuMrpKey(row.sku, row.mrp);
+                mrpByKey.putIfAbsent(key, row.mrp);
+                grouped.computeIfAbsent(key, ignored -> new ArrayList<>());
+
+                if (row.batchNo != null && row.quantity != null) {
+                    InventoryBatchResponse batch = new InventoryBatchResponse();
+                    batch.setBatchNo(row.batchNo);
+                    batch.setMrp(row.mrp);
+                    batch.setQuantity(row.quantity);
+                    batch.setExpiryDate(row.expiryDate);
+                    grouped.get(key).add(batch);
+                }
+            }
+
+            List<InventoryBatchesBySkuMrpResponse> mapped = new ArrayList<>();
+            grouped.forEach((key, batches) -> {
+                String[] parts = key.split("\\|\\|", 2);
+                if (parts.length != 2) {
+                    return;
+                }
+
+                InventoryBatchesBySkuMrpResponse row = new InventoryBatchesBySkuMrpResponse();
+                row.setSku(parts[0]);
+                row.setMrp(mrpByKey.get(key));
+                row.setBatches(batches);
+                mapped.add(row);
+            });
+
+            return mapped.toArray(new InventoryBatchesBySkuMrpResponse[0]);
+        }
+
+        private boolean looksLikeSkuMrpResponse(JsonNode node) {
+            return node != null && node.isObject() && node.has("sku") && node.has("mrp") && node.has("batches");
+        }
+
+        private static class FlatBatchRow {
+            public String sku;
+            public Double mrp;
+            public String batchNo;
+            public LocalDate expiryDate;
+            public Integer quantity;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.addverb.outbound_service.inventory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryClientHedgingTests {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(50);
+
+    private final InventoryHedgingPolicy hedgingPolicy = mock(InventoryHedgingPolicy.class);
+    private final InventoryClient inventoryClient = new InventoryClient(
+            WebClient.create(),
+            new InventoryAvailableResponseDecoder(new ObjectMapper()),
+            CircuitBreaker.ofDefaults("inventory"),
+            Bulkhead.ofDefaults("inventory"),
+            hedgingPolicy);
+
+    private final AtomicInteger attemptsStarted = new AtomicInteger();
+
+    @BeforeEach
+    void enableHedging() {
+        when(hedgingPolicy.isEnabled()).thenReturn(true);
+        when(hedgingPolicy.hedgeDelay()).thenReturn(HEDGE_DELAY);
+    }
+
+    @Test
+    void fastFirstAttemptIsNotHedged() {
+        Supplier<Mono<String>> attempts = attempts(
+                delayed(Duration.ofMillis(10), "first"),
+                Mono.just("hedge"));
+
+        StepVerifier.withVirtualTime(() -> inventoryClient.hedged(attempts))
+                .thenAwait(Duration.ofMillis(10))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertEquals(1, attemptsStarted.get());
+        verify(hedgingPolicy, times(1)).recordLatency(anyLong());
+    }
+
+    @Test
+    void slowFirstAttemptIsOvertakenAndItsLatencyStillRecorded() {
+        AtomicBoolean firstCancelled = new AtomicBoolean();
+        Supplier<Mono<String>> attempts = attempts(
+                delayed(Duration.ofSeconds(5), "first").doOnCancel(() -> firstCancelled.set(true)),
+                delayed(Duration.ofMillis(10), "hedge"));
+
+        StepVerifier.withVirtualTime(() -> inventoryClient.hedged(attempts))
+                .expectSubscription()
+                .expectNoEvent(HEDGE_DELAY)
+                .thenAwait(Duration.ofMillis(10))
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertEquals(2, attemptsStarted.get());
+        assertTrue(firstCancelled.get());
+        // Once for the hedge's success and once for the overtaken first attempt
+        verify(hedgingPolicy, times(2)).recordLatency(anyLong());
+    }
+
+    @Test
+    void failedHedgeNeverWins() {
+        Supplier<Mono<String>> attempts = attempts(
+                delayed(Duration.ofMillis(200), "first"),
+                Mono.error(new IllegalStateException("hedge failed")));
+
+        StepVerifier.withVirtualTime(() -> inventoryClient.hedged(attempts))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(199))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertEquals(2, attemptsStarted.get());
+    }
+
+    @Test
+    void failureOfTheFirstAttemptIsNotHedged() {
+        Supplier<Mono<String>> attempts = attempts(
+                delayed(Duration.ofMillis(10), "first").then(Mono.error(new IllegalStateException("first failed"))),
+                Mono.just("hedge"));
+
+        StepVerifier.withVirtualTime(() -> inventoryClient.hedged(attempts))
+                .thenAwait(Duration.ofMillis(10))
+                .expectErrorMessage("first failed")
+                .verify();
+
+        assertEquals(1, attemptsStarted.get());
+    }
+
+    @Test
+    void disabledHedgingSendsOneAttempt() {
+        when(hedgingPolicy.isEnabled()).thenReturn(false);
+        Supplier<Mono<String>> attempts = attempts(
+                delayed(Duration.ofSeconds(5), "first"),
+                Mono.just("hedge"));
+
+        StepVerifier.withVirtualTime(() -> inventoryClient.hedged(attempts))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertEquals(1, attemptsStarted.get());
+    }
+
+    /**
+     * Assembled on subscription, so the delay runs on the virtual time scheduler StepVerifier installs.
+     */
+    private static Mono<String> delayed(Duration delay, String value) {
+        return Mono.defer(() -> Mono.delay(delay).thenReturn(value));
+    }
+
+    @SafeVarargs
+    private Supplier<Mono<String>> attempts(Mono<String>... attempts) {
+        List<Mono<String>> queued = List.of(attempts);
+        return () -> queued.get(attemptsStarted.getAndIncrement());
+    }
+}
@@ -0,0 +1,74 @@
+package com.addverb.outbound_service.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InventoryDeductionCompactorTests {
+
+    private static final LocalDate EXPIRY = LocalDate.of(2026, 6, 1);
+
+    @Test
+    void itemsOfOneBatchAreMergedInFirstSeenOrder() {
+        InventoryDeductionCompactor.CompactedDeduction compacted = InventoryDeductionCompactor.compact(List.of(
+                plan("ORD-1", item("SKU-1", 10.0, "B2", 3), item("SKU-1", 10.0, "B1", 1)),
+                plan("ORD-2", item("SKU-1", 10.0, "B1", 4), item("SKU-2", 10.0, "B1", 2)),
+                plan("ORD-3", item("SKU-1", 10.0, "B2", 5))));
+
+        assertEquals(5, compacted.originalItemCount());
+        assertEquals(3, compacted.compactedItemCount());
+        assertEquals(List.of("SKU-1||B2", "SKU-1||B1", "SKU-2||B1"), keys(compacted.items()));
+        assertEquals(List.of(8, 5, 2), quantities(compacted.items()));
+    }
+
+    @Test
+    void sameBatchNumberUnderAnotherMrpIsNotMerged() {
+        InventoryDeductionCompactor.CompactedDeduction compacted = InventoryDeductionCompactor.compact(List.of(
+                item("SKU-1", 10.0, "B1", 3),
+                item("SKU-1", 12.0, "B1", 4),
+                item("SKU-1", 10.0, "B1", 1)));
+
+        assertEquals(List.of(10.0, 12.0), compacted.items().stream().map(InventoryDeductRequest::getMrp).toList());
+        assertEquals(List.of(4, 4), quantities(compacted.items()));
+    }
+
+    @Test
+    void mergedItemKeepsTheFirstItemsDetailsAndLeavesInputsUntouched() {
+        InventoryDeductRequest first = item("SKU-1", 10.0, "B1", 3);
+        InventoryDeductRequest second = item("SKU-1", 10.0, "B1", null);
+
+        InventoryDeductRequest merged = InventoryDeductionCompactor.compact(List.of(first, second)).items().get(0);
+
+        assertEquals(3, merged.getQuantity());
+        assertEquals(EXPIRY, merged.getExpiryDate());
+        assertEquals(3, first.getQuantity());
+    }
+
+    private static InventoryOrderDeductPlan plan(String orderNumber, InventoryDeductRequest... items) {
+        return InventoryOrderDeductPlan.builder()
+                .orderNumber(orderNumber)
+                .allocations(List.of(items))
+                .build();
+    }
+
+    private static InventoryDeductRequest item(String sku, Double mrp, String batchNo, Integer quantity) {
+        return InventoryDeductRequest.builder()
+                .sku(sku)
+                .mrp(mrp)
+                .batchNo(batchNo)
+                .quantity(quantity)
+                .expiryDate(EXPIRY)
+                .build();
+    }
+
+    private static List<String> keys(List<InventoryDeductRequest> items) {
+        return items.stream().map(item -> item.getSku() + "||" + item.getBatchNo()).toList();
+    }
+
+    private static List<Integer> quantities(List<InventoryDeductRequest> items) {
+        return items.stream().map(InventoryDeductRequest::getQuantity).toList();
+    }
+}
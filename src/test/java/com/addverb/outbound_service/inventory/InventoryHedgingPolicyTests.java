@@ -0,0 +1,61 @@
+package com.addverb.outbound_service.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InventoryHedgingPolicyTests {
+
+    @Test
+    void initialDelayIsUsedUntilMinSamplesWereRecorded() {
+        InventoryHedgingPolicy policy = new InventoryHedgingPolicy(true, 95, 0, 200, 5, 10);
+
+        record(policy, 1, 2, 3, 4);
+        assertEquals(Duration.ofMillis(200), policy.hedgeDelay());
+
+        record(policy, 5);
+        assertEquals(Duration.ofMillis(5), policy.hedgeDelay());
+    }
+
+    @Test
+    void delayIsTheConfiguredPercentileOfTheWindow() {
+        InventoryHedgingPolicy p95 = new InventoryHedgingPolicy(true, 95, 0, 200, 1, 20);
+        InventoryHedgingPolicy p50 = new InventoryHedgingPolicy(true, 50, 0, 200, 1, 20);
+
+        // Recorded out of order: the percentile is taken over the sorted window
+        record(p95, 7, 3, 10, 1, 9, 2, 8, 4, 6, 5);
+        record(p50, 7, 3, 10, 1, 9, 2, 8, 4, 6, 5);
+
+        assertEquals(Duration.ofMillis(10), p95.hedgeDelay());
+        assertEquals(Duration.ofMillis(5), p50.hedgeDelay());
+    }
+
+    @Test
+    void ringBufferKeepsOnlyTheMostRecentSamples() {
+        InventoryHedgingPolicy policy = new InventoryHedgingPolicy(true, 100, 0, 200, 1, 4);
+
+        record(policy, 100, 100, 100, 100);
+        record(policy, 1, 2, 3, 4);
+
+        assertEquals(Duration.ofMillis(4), policy.hedgeDelay());
+    }
+
+    @Test
+    void delayIsClampedToMinDelay() {
+        InventoryHedgingPolicy sampled = new InventoryHedgingPolicy(true, 95, 20, 200, 1, 10);
+        InventoryHedgingPolicy initial = new InventoryHedgingPolicy(true, 95, 20, 5, 1, 10);
+
+        record(sampled, 1, 1, 2, 3);
+
+        assertEquals(Duration.ofMillis(20), sampled.hedgeDelay());
+        assertEquals(Duration.ofMillis(20), initial.hedgeDelay());
+    }
+
+    private static void record(InventoryHedgingPolicy policy, long... latenciesMillis) {
+        for (long latency : latenciesMillis) {
+            policy.recordLatency(Duration.ofMillis(latency).toNanos());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.addverb.outbound_service.inventory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryLookupCoalescerTests {
+
+    private static final int CALLERS = 8;
+
+    private final InventoryClient inventoryClient = mock(InventoryClient.class);
+    private final InventoryLookupCoalescer coalescer = new InventoryLookupCoalescer(inventoryClient, true, 100, 200);
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+        coalescer.shutdown();
+    }
+
+    @Test
+    void concurrentCallersShareOneAvailableCall() throws Exception {
+        stubAvailable();
+
+        List<List<InventoryBatchResponse>> results = runConcurrently(i -> coalescer.getBatchesBySkuAndMrp("SKU-" + (i % 3), 10.0));
+
+        verify(inventoryClient, times(1)).getBatchesBySkuAndMrpBulk(anyList());
+        for (int i = 0; i < CALLERS; i++) {
+            assertEquals("SKU-" + (i % 3), results.get(i).get(0).getBatchNo());
+        }
+    }
+
+    @Test
+    void concurrentCacheMissesShareOneAvailableCall() throws Exception {
+        stubAvailable();
+        InventorySnapshotCache cache = new InventorySnapshotCache(inventoryClient, coalescer, true, 60_000, 100);
+
+        List<List<InventoryBatchResponse>> results = runConcurrently(i -> cache.getBatchesBySkuAndMrp("SKU-1", 10.0));
+
+        verify(inventoryClient, times(1)).getBatchesBySkuAndMrpBulk(anyList());
+        results.forEach(batches -> assertEquals("SKU-1", batches.get(0).getBatchNo()));
+    }
+
+    @Test
+    void reactiveCallersShareOneAvailableCall() {
+        stubAvailable();
+
+        List<List<InventoryBatchResponse>> results = Flux.range(0, CALLERS)
+                .flatMap(i -> coalescer.getBatchesBySkuAndMrpReactive("SKU-" + (i % 2), 10.0))
+                .collectList()
+                .block();
+
+        verify(inventoryClient, times(1)).getBatchesBySkuAndMrpBulk(anyList());
+        assertEquals(CALLERS, results.size());
+    }
+
+    private List<List<InventoryBatchResponse>> runConcurrently(Lookup lookup) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<InventoryBatchResponse>>> futures = new ArrayList<>();
+
+        for (int i = 0; i < CALLERS; i++) {
+            int caller = i;
+            futures.add(callers.submit(() -> {
+                start.await();
+                return lookup.get(caller);
+            }));
+        }
+        start.countDown();
+
+        List<List<InventoryBatchResponse>> results = new ArrayList<>();
+        for (Future<List<InventoryBatchResponse>> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    /**
+     * Answers every queried key with one batch named after its SKU.
+     */
+    @SuppressWarnings("unchecked")
+    private void stubAvailable() {
+        when(inventoryClient.getBatchesBySkuAndMrpBulk(anyList())).thenAnswer(invocation -> {
+            Map<String, List<InventoryBatchResponse>> response = new HashMap<>();
+            for (InventoryClient.OrderInventoryQuery query : (List<InventoryClient.OrderInventoryQuery>) invocation.getArgument(0)) {
+                InventoryBatchResponse batch = new InventoryBatchResponse();
+                batch.setBatchNo(query.skuCode());
+                batch.setQuantity(5);
+                response.put(InventoryClient.skuMrpKey(query.skuCode(), query.mrp()), List.of(batch));
+            }
+            return response;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Lookup {
+        List<InventoryBatchResponse> get(int caller);
+    }
+}
@@ -0,0 +1,193 @@
+package com.addverb.outbound_service.inventory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventorySnapshotCacheTests {
+
+    private static final long LONG_TTL_MS = 60_000;
+
+    private static final InventoryClient.OrderInventoryQuery SKU_A = new InventoryClient.OrderInventoryQuery("SKU-A", 10.0);
+    private static final InventoryClient.OrderInventoryQuery SKU_B = new InventoryClient.OrderInventoryQuery("SKU-B", 10.0);
+    private static final InventoryClient.OrderInventoryQuery SKU_C = new InventoryClient.OrderInventoryQuery("SKU-C", 10.0);
+
+    private final InventoryClient inventoryClient = mock(InventoryClient.class);
+    private final InventoryLookupCoalescer coalescer = new InventoryLookupCoalescer(inventoryClient, false, 5, 200);
+
+    @AfterEach
+    void shutdownCoalescer() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    void freshKeysAreServedFromTheCache() {
+        InventorySnapshotCache cache = cache(LONG_TTL_MS, 100);
+        stubAvailable(Map.of(key(SKU_A), 10, key(SKU_B), 4));
+
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A, SKU_B));
+        Map<String, List<InventoryBatchResponse>> second = cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A, SKU_B));
+
+        verify(inventoryClient, times(1)).getBatchesBySkuAndMrpBulk(anyList());
+        assertEquals(10, quantity(second, SKU_A));
+        assertEquals(4, quantity(second, SKU_B));
+    }
+
+    @Test
+    void expiredKeysAreFetchedAgain() {
+        InventorySnapshotCache cache = cache(0, 100);
+        stubAvailable(Map.of(key(SKU_A), 10));
+
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+
+        verify(inventoryClient, times(2)).getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+    }
+
+    @Test
+    void leastRecentlyUsedKeyIsEvictedBeyondMaxEntries() {
+        InventorySnapshotCache cache = cache(LONG_TTL_MS, 2);
+        stubAvailable(Map.of(key(SKU_A), 1, key(SKU_B), 2, key(SKU_C), 3));
+
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_B));
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_C));
+
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_B));
+
+        verify(inventoryClient, times(1)).getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+        verify(inventoryClient, times(2)).getBatchesBySkuAndMrpBulk(List.of(SKU_B));
+    }
+
+    @Test
+    void confirmedDeductionsAreSubtractedFromTheCachedView() {
+        InventorySnapshotCache cache = cache(LONG_TTL_MS, 100);
+        stubAvailable(Map.of(key(SKU_A), 10));
+
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+        cache.recordDeductions(List.of(deduction(SKU_A, 3), deduction(SKU_A, 4)));
+
+        assertEquals(3, quantity(cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A)), SKU_A));
+
+        cache.recordDeductions(List.of(deduction(SKU_A, 5)));
+
+        assertEquals(0, quantity(cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A)), SKU_A));
+    }
+
+    @Test
+    void deductionsConfirmedDuringARefetchCarryOverToTheNewSnapshot() {
+        InventorySnapshotCache cache = cache(0, 100);
+        stubAvailable(Map.of(key(SKU_A), 10));
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+
+        // The refetched stock predates a deduction confirmed while the call was in flight
+        when(inventoryClient.getBatchesBySkuAndMrpBulk(anyList())).thenAnswer(invocation -> {
+            cache.recordDeductions(List.of(deduction(SKU_A, 2)));
+            return available(Map.of(key(SKU_A), 10));
+        });
+
+        assertEquals(8, quantity(cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A)), SKU_A));
+    }
+
+    @Test
+    void deductionsBeforeARefetchAreNotSubtractedAgain() {
+        InventorySnapshotCache cache = cache(0, 100);
+        stubAvailable(Map.of(key(SKU_A), 10));
+
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+        cache.recordDeductions(List.of(deduction(SKU_A, 2)));
+        stubAvailable(Map.of(key(SKU_A), 8));
+
+        assertEquals(8, quantity(cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A)), SKU_A));
+    }
+
+    @Test
+    void invalidatedKeysAreFetchedAgain() {
+        InventorySnapshotCache cache = cache(LONG_TTL_MS, 100);
+        stubAvailable(Map.of(key(SKU_A), 10, key(SKU_B), 4));
+
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A, SKU_B));
+        cache.invalidate(List.of(SKU_A));
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A, SKU_B));
+
+        verify(inventoryClient, times(1)).getBatchesBySkuAndMrpBulk(List.of(SKU_A, SKU_B));
+        verify(inventoryClient, times(1)).getBatchesBySkuAndMrpBulk(List.of(SKU_A));
+    }
+
+    @Test
+    void keysMissingFromADegradedResponseAreNotCached() {
+        InventorySnapshotCache cache = cache(LONG_TTL_MS, 100);
+        stubAvailable(Map.of(key(SKU_A), 10));
+
+        Map<String, List<InventoryBatchResponse>> first = cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A, SKU_B));
+        cache.getBatchesBySkuAndMrpBulk(List.of(SKU_A, SKU_B));
+
+        assertTrue(first.get(key(SKU_B)).isEmpty());
+        assertTrue(cache.getLastKnownBatches(List.of(SKU_B)).isEmpty());
+        verify(inventoryClient, times(1)).getBatchesBySkuAndMrpBulk(List.of(SKU_A, SKU_B));
+        verify(inventoryClient, times(1)).getBatchesBySkuAndMrpBulk(List.of(SKU_B));
+    }
+
+    private InventorySnapshotCache cache(long ttlMillis, int maxEntries) {
+        return new InventorySnapshotCache(inventoryClient, coalescer, true, ttlMillis, maxEntries);
+    }
+
+    /**
+     * Answers the queried keys present in {@code stockByKey} with a single batch B1 of that quantity.
+     */
+    @SuppressWarnings("unchecked")
+    private void stubAvailable(Map<String, Integer> stockByKey) {
+        when(inventoryClient.getBatchesBySkuAndMrpBulk(anyList())).thenAnswer(invocation -> {
+            Map<String, Integer> queried = new HashMap<>();
+            for (InventoryClient.OrderInventoryQuery query : (List<InventoryClient.OrderInventoryQuery>) invocation.getArgument(0)) {
+                String key = key(query);
+                if (stockByKey.containsKey(key)) {
+                    queried.put(key, stockByKey.get(key));
+                }
+            }
+            return available(queried);
+        });
+    }
+
+    private static Map<String, List<InventoryBatchResponse>> available(Map<String, Integer> stockByKey) {
+        Map<String, List<InventoryBatchResponse>> response = new HashMap<>();
+        stockByKey.forEach((key, quantity) -> {
+            InventoryBatchResponse batch = new InventoryBatchResponse();
+            batch.setBatchNo("B1");
+            batch.setMrp(10.0);
+            batch.setQuantity(quantity);
+            response.put(key, List.of(batch));
+        });
+        return response;
+    }
+
+    private static InventoryDeductRequest deduction(InventoryClient.OrderInventoryQuery query, int quantity) {
+        return InventoryDeductRequest.builder()
+                .sku(query.skuCode())
+                .mrp(query.mrp())
+                .batchNo("B1")
+                .quantity(quantity)
+                .build();
+    }
+
+    private static int quantity(Map<String, List<InventoryBatchResponse>> inventory, InventoryClient.OrderInventoryQuery query) {
+        return inventory.get(key(query)).get(0).getQuantity();
+    }
+
+    private static String key(InventoryClient.OrderInventoryQuery query) {
+        return InventoryClient.skuMrpKey(query.skuCode(), query.mrp());
+    }
+}
@@ -0,0 +1,293 @@
+package com.addverb.outbound_service.repository;
+
+import com.addverb.outbound_service.entity.Order;
+import com.addverb.outbound_service.enums.OrderStatus;
+import com.addverb.outbound_service.specification.OrderKeysetCursor;
+import com.addverb.outbound_service.specification.OrderSpecification;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the hot order queries are answered with index seeks on a large synthetic dataset.
+ * <p>
+ * Seeds 200k orders spread over a year (mostly COMPLETED, 500 SKUs) with one allocation each and applies
+ * {@code db/scripts/002_orders_indexes.sql}. Each test calls the real repository method or specification,
+ * captures the SQL Hibernate sent through a {@link StatementInspector} and asserts on the plan SQL Server
+ * cached for that statement, so the plan covers the generated SQL with its real bind values.
+ * <p>
+ * Runs only against the dedicated database of the {@code query-plans} profile
+ * ({@code src/test/resources/application-query-plans.properties}); the login needs VIEW SERVER STATE to read
+ * the plan cache. Run with {@code ./mvnw test -Dtest=OrderQueryPlanTests -DqueryPlans=true}.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.addverb.outbound_service.repository.OrderQueryPlanTests$CapturingStatementInspector")
+@ActiveProfiles("query-plans")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "queryPlans", matches = "true")
+class OrderQueryPlanTests {
+
+    private static final String ORDER_PREFIX = "PLAN-TEST-";
+    private static final int SEEDED_ORDERS = 200_000;
+    private static final int SKUS = 500;
+
+    private static final Sort CREATED_AT_DESC = Sort.by("createdAt").descending();
+    private static final Sort KEYSET_ORDER = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.query-plans.database}")
+    private String queryPlansDatabase;
+
+    private boolean onDedicatedDatabase;
+
+    private LocalDateTime now;
+
+    @BeforeAll
+    void seedOrders() {
+        String database = jdbcTemplate.queryForObject("SELECT DB_NAME()", String.class);
+        if (!queryPlansDatabase.equalsIgnoreCase(database)) {
+            throw new IllegalStateException("OrderQueryPlanTests seeds orders and rebuilds indexes; connected to "
+                    + database + " instead of the dedicated " + queryPlansDatabase + " database");
+        }
+        onDedicatedDatabase = true;
+
+        removeSeededOrders();
+
+        now = LocalDateTime.now().withNano(0);
+        List<Object[]> rows = new ArrayList<>(SEEDED_ORDERS);
+        for (int i = 0; i < SEEDED_ORDERS; i++) {
+            String status = i % 100 == 0 ? "PENDING" : i % 100 < 4 ? "PARTIAL" : "COMPLETED";
+            Timestamp createdAt = Timestamp.valueOf(now.minusDays(i % 365).minusSeconds(i % 86_400));
+            rows.add(new Object[]{ORDER_PREFIX + i, "Plan", "Plan", "PLAN-SKU-" + (i % SKUS), 10.0, 10, 10, status, createdAt, createdAt});
+        }
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO orders (id, order_number, customer_name, address, sku_code, mrp, requested_qty, allocated_qty, status, created_at, updated_at, version)
+                VALUES (NEXT VALUE FOR orders_seq, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+                """, rows);
+
+        jdbcTemplate.update("""
+                INSERT INTO order_allocations (id, sku_code, batch_no, expiry_date, mrp, allocated_qty, order_id)
+                SELECT NEXT VALUE FOR order_allocations_seq, sku_code, 'B1', CAST(created_at AS DATE), mrp, allocated_qty, id
+                FROM orders
+                WHERE order_number LIKE ?
+                """, ORDER_PREFIX + "%");
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/scripts/002_orders_indexes.sql"));
+            return null;
+        });
+    }
+
+    @AfterAll
+    void removeSeededOrders() {
+        if (!onDedicatedDatabase) {
+            return;
+        }
+        jdbcTemplate.update("""
+                DELETE a FROM order_allocations a
+                JOIN orders o ON o.id = a.order_id
+                WHERE o.order_number LIKE ?
+                """, ORDER_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM orders WHERE order_number LIKE ?", ORDER_PREFIX + "%");
+    }
+
+    @Test
+    void countByStatusSeeksStatusIndex() {
+        for (OrderStatus status : List.of(OrderStatus.PENDING, OrderStatus.PARTIAL, OrderStatus.COMPLETED)) {
+            assertSeeks(() -> orderRepository.countByStatus(status), "orders", "ix_orders_status_created_at");
+        }
+    }
+
+    @Test
+    void countByCreatedAtBetweenSeeksCreatedAtIndex() {
+        assertSeeks(() -> orderRepository.countByCreatedAtBetween(now.toLocalDate().atStartOfDay(), now),
+                "orders", "ix_orders_created_at_id");
+    }
+
+    @Test
+    void statusAndDateFilterSeeksStatusIndex() {
+        Specification<Order> spec = Specification
+                .where(OrderSpecification.hasStatus(OrderStatus.PENDING))
+                .and(OrderSpecification.createdAfter(now.minusDays(7)));
+
+        assertSeeks(() -> orderRepository.findListViews(spec, CREATED_AT_DESC, 0, 50),
+                "orders", "ix_orders_status_created_at");
+    }
+
+    @Test
+    void skuFilterSeeksSkuIndex() {
+        Specification<Order> spec = Specification.where(OrderSpecification.hasSkuCode("PLAN-SKU-7"));
+
+        assertSeeks(() -> orderRepository.findListViews(spec, CREATED_AT_DESC, 0, 50),
+                "orders", "ix_orders_sku_code_created_at");
+    }
+
+    @Test
+    void keysetPageSeeksCreatedAtIndex() {
+        Long cursorId = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM orders WHERE order_number LIKE ?", Long.class, ORDER_PREFIX + "%");
+        Specification<Order> spec = Specification
+                .where(OrderSpecification.seekAfter(new OrderKeysetCursor(now.minusDays(180), cursorId)));
+
+        assertSeeks(() -> orderRepository.findListViews(spec, KEYSET_ORDER, 0, 51),
+                "orders", "ix_orders_created_at_id");
+    }
+
+    @Test
+    void dailyChartsSeekCreatedAtIndex() {
+        LocalDateTime startDate = now.minusDays(7);
+
+        assertSeeks(() -> orderRepository.getDailyOrders(startDate), "orders", "ix_orders_created_at_id");
+        assertSeeks(() -> orderRepository.getDailyAllocation(startDate), "orders", "ix_orders_created_at_id");
+    }
+
+    @Test
+    void allocationsOfOrderSeekOrderIdIndex() {
+        Long orderId = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM orders WHERE order_number LIKE ?", Long.class, ORDER_PREFIX + "%");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertSeeks(() -> transaction.execute(status -> orderRepository.findById(orderId).orElseThrow().getAllocations().size()),
+                "order_allocations", "ix_order_allocations_order_id");
+    }
+
+    private void assertSeeks(Runnable call, String table, String index) {
+
+        String sql = capturedSql(call, table);
+        Document plan = cachedPlan(sql);
+        List<String> accesses = new ArrayList<>();
+        boolean seeksIndex = false;
+
+        NodeList indexScans = plan.getElementsByTagNameNS("*", "IndexScan");
+        for (int i = 0; i < indexScans.getLength(); i++) {
+            Element indexScan = (Element) indexScans.item(i);
+            Element relOp = (Element) indexScan.getParentNode();
+            Element object = (Element) indexScan.getElementsByTagNameNS("*", "Object").item(0);
+
+            String physicalOp = relOp.getAttribute("PhysicalOp");
+            String accessedTable = unquote(object.getAttribute("Table"));
+            String accessedIndex = unquote(object.getAttribute("Index"));
+            accesses.add(physicalOp + " " + accessedTable + "." + accessedIndex);
+
+            if (accessedTable.equalsIgnoreCase(table)) {
+                assertFalse(physicalOp.endsWith("Scan"), () -> "Scan on " + table + " for: " + sql + "\n" + accesses);
+                seeksIndex |= physicalOp.equals("Index Seek") && accessedIndex.equalsIgnoreCase(index);
+            }
+        }
+
+        assertTrue(plan.getElementsByTagNameNS("*", "TableScan").getLength() == 0, () -> "Table scan for: " + sql);
+        assertTrue(seeksIndex, () -> "Expected an Index Seek on " + index + " for: " + sql + "\n" + accesses);
+    }
+
+    /**
+     * Last statement reading {@code table} that Hibernate prepared on this thread while running {@code call}.
+     */
+    private static String capturedSql(Runnable call, String table) {
+
+        List<String> captured = new ArrayList<>();
+        CapturingStatementInspector.CAPTURED.set(captured);
+        try {
+            call.run();
+        } finally {
+            CapturingStatementInspector.CAPTURED.remove();
+        }
+
+        String tableReference = " " + table.toLowerCase() + " ";
+        String sql = null;
+        for (String statement : captured) {
+            if (statement.toLowerCase().contains(tableReference)) {
+                sql = statement;
+            }
+        }
+        assertNotNull(sql, () -> "No statement on " + table + " among: " + captured);
+        return sql;
+    }
+
+    /**
+     * Plan cached for the statement just executed. The driver sends {@code ?} placeholders as {@code @P0, @P1, ...}
+     * behind a parameter declaration, so the placeholders and that prefix are matched as wildcards.
+     */
+    private Document cachedPlan(String sql) {
+
+        String pattern = "%" + sql.replace("[", "[[]").replace("%", "[%]").replace("_", "[_]").replace("?", "%");
+
+        List<String> plans = jdbcTemplate.queryForList("""
+                SELECT TOP 1 CAST(qp.query_plan AS NVARCHAR(MAX))
+                FROM sys.dm_exec_query_stats qs
+                CROSS APPLY sys.dm_exec_sql_text(qs.sql_handle) st
+                CROSS APPLY sys.dm_exec_query_plan(qs.plan_handle) qp
+                WHERE st.text LIKE ?
+                ORDER BY qs.last_execution_time DESC
+                """, String.class, pattern);
+
+        assertFalse(plans.isEmpty() || plans.get(0) == null, () -> "No cached plan for: " + sql);
+
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            return factory.newDocumentBuilder().parse(new InputSource(new StringReader(plans.get(0))));
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unreadable plan for: " + sql, ex);
+        }
+    }
+
+    private static String unquote(String identifier) {
+        return identifier.replace("[", "").replace("]", "");
+    }
+
+    /**
+     * Registered by class name on the session factory; only records while a test thread is capturing.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> captured = CAPTURED.get();
+            if (captured != null) {
+                captured.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.addverb.outbound_service.service;
+
+import com.addverb.outbound_service.entity.InventoryDeductionOutbox;
+import com.addverb.outbound_service.enums.OutboxStatus;
+import com.addverb.outbound_service.exception.InventoryServiceException;
+import com.addverb.outbound_service.inventory.InventoryClient;
+import com.addverb.outbound_service.inventory.InventoryDeductRequest;
+import com.addverb.outbound_service.repository.InventoryDeductionOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryDeductionDispatcherTests {
+
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 4_000;
+    private static final long LEASE_MS = 30_000;
+
+    private final InventoryDeductionOutboxRepository outboxRepository = mock(InventoryDeductionOutboxRepository.class);
+    private final InventoryDeductionOutboxService outboxService = mock(InventoryDeductionOutboxService.class);
+    private final InventoryClient inventoryClient = mock(InventoryClient.class);
+
+    private final InventoryDeductionDispatcher dispatcher = new InventoryDeductionDispatcher(
+            outboxRepository, outboxService, inventoryClient, mock(PlatformTransactionManager.class),
+            500, MAX_ATTEMPTS, BACKOFF_MS, MAX_BACKOFF_MS, LEASE_MS);
+
+    @BeforeEach
+    void enableOutbox() {
+        when(outboxService.isEnabled()).thenReturn(true);
+    }
+
+    @Test
+    void freshRowsAreLeasedAndSentUnderOneNewKey() {
+        InventoryDeductionOutbox first = row(1L, "B1", null, 0);
+        InventoryDeductionOutbox second = row(2L, "B2", null, 0);
+        stubDue(first, second);
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+
+        String dispatchKey = sentKey();
+        assertNotNull(dispatchKey);
+        assertEquals(dispatchKey, first.getDispatchKey());
+        assertEquals(dispatchKey, second.getDispatchKey());
+        assertFalse(first.getNextAttemptAt().isBefore(before.plusNanos(LEASE_MS * 1_000_000L)));
+        verify(outboxRepository).markSent(eq(List.of(1L, 2L)), eq(OutboxStatus.SENT), any());
+    }
+
+    @Test
+    void retriedKeyResendsAllOfItsRowsInIdOrder() {
+        InventoryDeductionOutbox first = row(1L, "B1", "KEY-1", 1);
+        InventoryDeductionOutbox second = row(2L, "B2", "KEY-1", 1);
+        InventoryDeductionOutbox third = row(3L, "B3", "KEY-1", 1);
+        // The page cut the key short: only its last row is in this claim
+        stubDue(third);
+        when(outboxRepository.findByDispatchKeysForUpdate(anyCollection(), eq(OutboxStatus.PENDING)))
+                .thenReturn(List.of(first, second, third));
+
+        dispatcher.dispatch();
+
+        assertEquals("KEY-1", sentKey());
+        assertEquals(List.of("B1", "B2", "B3"), sentItems().stream().map(InventoryDeductRequest::getBatchNo).toList());
+        verify(outboxRepository).markSent(eq(List.of(1L, 2L, 3L)), eq(OutboxStatus.SENT), any());
+    }
+
+    @Test
+    void keyLeasedByAnotherDispatcherMeanwhileIsSkipped() {
+        InventoryDeductionOutbox leased = row(1L, "B1", "KEY-1", 1);
+        leased.setNextAttemptAt(LocalDateTime.now().plusSeconds(30));
+        InventoryDeductionOutbox due = row(2L, "B2", "KEY-1", 1);
+        stubDue(due);
+        when(outboxRepository.findByDispatchKeysForUpdate(anyCollection(), eq(OutboxStatus.PENDING)))
+                .thenReturn(List.of(leased, due));
+
+        dispatcher.dispatch();
+
+        verify(inventoryClient, never()).deductInventoryBulk(anyList(), anyString());
+    }
+
+    @Test
+    void failedDispatchBacksOffExponentiallyWithJitter() {
+        InventoryDeductionOutbox row = row(1L, "B1", "KEY-1", 2);
+        stubDue(row);
+        when(outboxRepository.findByDispatchKeysForUpdate(anyCollection(), eq(OutboxStatus.PENDING))).thenReturn(List.of(row));
+        when(outboxRepository.findAllById(List.of(1L))).thenReturn(List.of(row));
+        doThrow(new InventoryServiceException("Inventory deduction failed: 503"))
+                .when(inventoryClient).deductInventoryBulk(anyList(), anyString());
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+        LocalDateTime after = LocalDateTime.now();
+
+        // Third attempt: 500 ms << 2, plus up to a fifth of that as jitter
+        assertEquals(3, row.getAttempts());
+        assertEquals(OutboxStatus.PENDING, row.getStatus());
+        assertEquals("Inventory deduction failed: 503", row.getLastError());
+        assertBetween(row.getNextAttemptAt(), before.plusNanos(2_000 * 1_000_000L), after.plusNanos(2_400 * 1_000_000L));
+    }
+
+    @Test
+    void backoffIsCappedAtMaxBackoff() {
+        InventoryDeductionOutbox row = row(1L, "B1", "KEY-1", 4);
+        stubDue(row);
+        when(outboxRepository.findByDispatchKeysForUpdate(anyCollection(), eq(OutboxStatus.PENDING))).thenReturn(List.of(row));
+        when(outboxRepository.findAllById(List.of(1L))).thenReturn(List.of(row));
+        doThrow(new IllegalStateException("connection reset"))
+                .when(inventoryClient).deductInventoryBulk(anyList(), anyString());
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+        LocalDateTime after = LocalDateTime.now();
+
+        // Fifth attempt: 500 ms << 4 is 8000 ms, capped at 4000 ms
+        assertEquals(5, row.getAttempts());
+        assertBetween(row.getNextAttemptAt(), before.plusNanos(MAX_BACKOFF_MS * 1_000_000L), after.plusNanos(4_800 * 1_000_000L));
+    }
+
+    @Test
+    void rowsAreParkedAsFailedAfterMaxAttempts() {
+        InventoryDeductionOutbox row = row(1L, "B1", "KEY-1", MAX_ATTEMPTS - 1);
+        stubDue(row);
+        when(outboxRepository.findByDispatchKeysForUpdate(anyCollection(), eq(OutboxStatus.PENDING))).thenReturn(List.of(row));
+        when(outboxRepository.findAllById(List.of(1L))).thenReturn(List.of(row));
+        doThrow(new InventoryServiceException("Inventory deduction failed: 409"))
+                .when(inventoryClient).deductInventoryBulk(anyList(), anyString());
+
+        dispatcher.dispatch();
+
+        assertEquals(MAX_ATTEMPTS, row.getAttempts());
+        assertEquals(OutboxStatus.FAILED, row.getStatus());
+    }
+
+    @Test
+    void lockConflictDuringClaimEndsThePoll() {
+        when(outboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), any(), any()))
+                .thenThrow(new CannotAcquireLockException("deadlock victim"));
+
+        assertDoesNotThrow(dispatcher::dispatch);
+        verify(inventoryClient, never()).deductInventoryBulk(anyList(), anyString());
+    }
+
+    private void stubDue(InventoryDeductionOutbox... rows) {
+        when(outboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), any(), any())).thenReturn(List.of(rows));
+    }
+
+    private String sentKey() {
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        verify(inventoryClient).deductInventoryBulk(anyList(), key.capture());
+        return key.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<InventoryDeductRequest> sentItems() {
+        ArgumentCaptor<List<InventoryDeductRequest>> items = ArgumentCaptor.forClass(List.class);
+        verify(inventoryClient).deductInventoryBulk(items.capture(), anyString());
+        return items.getValue();
+    }
+
+    private static void assertBetween(LocalDateTime actual, LocalDateTime from, LocalDateTime to) {
+        assertTrue(!actual.isBefore(from) && !actual.isAfter(to), actual + " not within [" + from + ", " + to + "]");
+    }
+
+    private static InventoryDeductionOutbox row(Long id, String batchNo, String dispatchKey, int attempts) {
+        return InventoryDeductionOutbox.builder()
+                .id(id)
+                .skuCode("SKU-1")
+                .mrp(10.0)
+                .batchNo(batchNo)
+                .quantity(2)
+                .status(OutboxStatus.PENDING)
+                .attempts(attempts)
+                .dispatchKey(dispatchKey)
+                .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                .createdAt(LocalDateTime.now().minusMinutes(1))
+                .build();
+    }
+}
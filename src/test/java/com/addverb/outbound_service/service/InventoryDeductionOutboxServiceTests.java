@@ -0,0 +1,125 @@
+package com.addverb.outbound_service.service;
+
+import com.addverb.outbound_service.exception.InventoryServiceException;
+import com.addverb.outbound_service.inventory.InventoryBatchResponse;
+import com.addverb.outbound_service.inventory.InventoryClient;
+import com.addverb.outbound_service.repository.InventoryDeductionOutboxRepository;
+import com.addverb.outbound_service.repository.InventoryPlanningLockRepository;
+import com.addverb.outbound_service.repository.projection.PendingDeductionView;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryDeductionOutboxServiceTests {
+
+    private static final LocalDateTime FETCH_STARTED_AT = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final InventoryDeductionOutboxRepository outboxRepository = mock(InventoryDeductionOutboxRepository.class);
+    private final InventoryPlanningLockRepository planningLockRepository = mock(InventoryPlanningLockRepository.class);
+    private final InventoryDeductionOutboxService outboxService = new InventoryDeductionOutboxService(outboxRepository, planningLockRepository);
+
+    @Test
+    void unreflectedDeductionsAreSubtractedPerBatch() {
+        Map<String, List<InventoryBatchResponse>> fetched = Map.of(
+                key("SKU-1", 10.0), List.of(batch("B1", 10), batch("B2", 3)),
+                key("SKU-2", 10.0), List.of(batch("B1", 7)));
+
+        // The query's per-batch sums of pending rows, rows parked as FAILED and rows sent after the fetch started;
+        // a batch can appear once per IN-clause chunk
+        when(outboxRepository.findAllUnreflectedDeductions(any(), eq(FETCH_STARTED_AT))).thenReturn(List.of(
+                new PendingDeductionView("SKU-1", 10.0, "B1", 4L),
+                new PendingDeductionView("SKU-1", 10.0, "B1", 2L),
+                new PendingDeductionView("SKU-1", 10.0, "B2", 5L)));
+
+        Map<String, List<InventoryBatchResponse>> adjusted =
+                outboxService.withUnreflectedDeductions(fetched, List.of("SKU-1", "SKU-2", "SKU-1"), FETCH_STARTED_AT);
+
+        assertEquals(List.of(4, 0), quantities(adjusted.get(key("SKU-1", 10.0))));
+        assertSame(fetched.get(key("SKU-2", 10.0)), adjusted.get(key("SKU-2", 10.0)));
+        assertEquals(List.of(10, 3), quantities(fetched.get(key("SKU-1", 10.0))));
+    }
+
+    @Test
+    void unreflectedDeductionsAreLookedUpOncePerSkuSinceTheFetchStarted() {
+        when(outboxRepository.findAllUnreflectedDeductions(any(), any())).thenReturn(List.of());
+        Map<String, List<InventoryBatchResponse>> fetched = Map.of(key("SKU-1", 10.0), List.of(batch("B1", 10)));
+
+        Map<String, List<InventoryBatchResponse>> adjusted =
+                outboxService.withUnreflectedDeductions(fetched, List.of("SKU-1", "SKU-1"), FETCH_STARTED_AT);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> skuCodes = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxRepository).findAllUnreflectedDeductions(skuCodes.capture(), eq(FETCH_STARTED_AT));
+        assertEquals(Set.of("SKU-1"), Set.copyOf(skuCodes.getValue()));
+        assertEquals(1, skuCodes.getValue().size());
+        assertSame(fetched, adjusted);
+    }
+
+    @Test
+    void deductionsOfAnotherMrpAreNotSubtracted() {
+        when(outboxRepository.findAllUnreflectedDeductions(any(), any())).thenReturn(List.of(
+                new PendingDeductionView("SKU-1", 12.0, "B1", 4L)));
+        Map<String, List<InventoryBatchResponse>> fetched = Map.of(key("SKU-1", 10.0), List.of(batch("B1", 10)));
+
+        Map<String, List<InventoryBatchResponse>> adjusted =
+                outboxService.withUnreflectedDeductions(fetched, List.of("SKU-1"), FETCH_STARTED_AT);
+
+        assertEquals(List.of(10), quantities(adjusted.get(key("SKU-1", 10.0))));
+    }
+
+    @Test
+    void planningLocksAreTakenInSortedOrderWithBoundedNames() {
+        when(planningLockRepository.lockAll(anyList(), anyInt())).thenReturn(true);
+        String longKey = "S".repeat(300) + "||10.0";
+
+        outboxService.lockForPlanning(List.of("SKU-2||10.0", longKey, "SKU-1||10.0"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> resources = ArgumentCaptor.forClass(List.class);
+        verify(planningLockRepository).lockAll(resources.capture(), anyInt());
+        assertEquals(3, resources.getValue().size());
+        assertEquals("outbound:inventory-planning:SKU-1||10.0", resources.getValue().get(0));
+        assertEquals("outbound:inventory-planning:SKU-2||10.0", resources.getValue().get(1));
+        assertTrue(resources.getValue().get(2).matches("outbound:inventory-planning:[0-9a-f]{64}"));
+    }
+
+    @Test
+    void planningLockTimeoutFailsTheAllocation() {
+        when(planningLockRepository.lockAll(anyList(), anyInt())).thenReturn(false);
+
+        assertThrows(InventoryServiceException.class, () -> outboxService.lockForPlanning(List.of("SKU-1||10.0")));
+    }
+
+    private static InventoryBatchResponse batch(String batchNo, int quantity) {
+        InventoryBatchResponse batch = new InventoryBatchResponse();
+        batch.setBatchNo(batchNo);
+        batch.setMrp(10.0);
+        batch.setQuantity(quantity);
+        return batch;
+    }
+
+    private static List<Integer> quantities(List<InventoryBatchResponse> batches) {
+        return batches.stream().map(InventoryBatchResponse::getQuantity).toList();
+    }
+
+    private static String key(String skuCode, Double mrp) {
+        return InventoryClient.skuMrpKey(skuCode, mrp);
+    }
+}
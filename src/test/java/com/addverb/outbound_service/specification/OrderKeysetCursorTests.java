@@ -0,0 +1,55 @@
+package com.addverb.outbound_service.specification;
+
+import com.addverb.outbound_service.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderKeysetCursorTests {
+
+    @Test
+    void encodedCursorDecodesToTheSamePosition() {
+        OrderKeysetCursor cursor = new OrderKeysetCursor(LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_793_000), 42L);
+
+        String token = cursor.encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+        assertEquals(cursor, OrderKeysetCursor.decode(token));
+    }
+
+    @Test
+    void cursorOnAWholeSecondSurvivesTheRoundTrip() {
+        OrderKeysetCursor cursor = new OrderKeysetCursor(LocalDateTime.of(2026, 3, 14, 9, 0), Long.MAX_VALUE);
+
+        assertEquals(cursor, OrderKeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void missingTokenMeansTheFirstPage() {
+        assertNull(OrderKeysetCursor.decode(null));
+        assertNull(OrderKeysetCursor.decode("  "));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2026-03-14T09:00|", "|42", "2026-03-14T09:00", "not-a-date|42", "2026-03-14T09:00|4x2"})
+    void malformedPositionIsRejected(String raw) {
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> OrderKeysetCursor.decode(token));
+        assertEquals("Invalid cursor", ex.getMessage());
+    }
+
+    @Test
+    void tokenThatIsNotBase64IsRejected() {
+        assertThrows(BusinessException.class, () -> OrderKeysetCursor.decode("%%not*base64%%"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.addverb.outbound_service.specification;
+
+import com.addverb.outbound_service.entity.Order;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderSpecificationTests {
+
+    private static final OrderKeysetCursor CURSOR = new OrderKeysetCursor(LocalDateTime.of(2026, 3, 14, 9, 0), 42L);
+
+    @SuppressWarnings("unchecked")
+    private final Root<Order> root = mock(Root.class);
+    private final CriteriaQuery<?> query = mock(CriteriaQuery.class);
+    private final CriteriaBuilder cb = mock(CriteriaBuilder.class);
+
+    @SuppressWarnings("unchecked")
+    private final Path<LocalDateTime> createdAt = mock(Path.class);
+    @SuppressWarnings("unchecked")
+    private final Path<Long> id = mock(Path.class);
+
+    @Test
+    void seekAfterBreaksCreatedAtTiesOnTheId() {
+        doReturn(createdAt).when(root).get("createdAt");
+        doReturn(id).when(root).get("id");
+
+        Predicate olderRow = mock(Predicate.class);
+        Predicate sameCreatedAt = mock(Predicate.class);
+        Predicate lowerId = mock(Predicate.class);
+        Predicate tiedRowWithLowerId = mock(Predicate.class);
+        Predicate seek = mock(Predicate.class);
+        when(cb.lessThan(createdAt, CURSOR.createdAt())).thenReturn(olderRow);
+        when(cb.equal(createdAt, CURSOR.createdAt())).thenReturn(sameCreatedAt);
+        when(cb.lessThan(id, CURSOR.id())).thenReturn(lowerId);
+        when(cb.and(sameCreatedAt, lowerId)).thenReturn(tiedRowWithLowerId);
+        when(cb.or(olderRow, tiedRowWithLowerId)).thenReturn(seek);
+
+        // createdAt < :createdAt OR (createdAt = :createdAt AND id < :id)
+        assertSame(seek, OrderSpecification.seekAfter(CURSOR).toPredicate(root, query, cb));
+    }
+
+    @Test
+    void seekAfterWithoutCursorAddsNoRestriction() {
+        assertNull(OrderSpecification.seekAfter(null).toPredicate(root, query, cb));
+    }
+}